@@ -0,0 +1,125 @@
+package com.example.chessengine;
+
+// attacked squares per color and number of attackers per square, kept up-to-date while moves are made and taken back
+// a board change only touches the pieces on the changed squares and the sliders looking at them:
+// their attacks are removed before the change (beginChange) and added again afterwards (endChange)
+public class AttackMaps {
+
+    // attacks of the piece standing on a square (0 for empty squares)
+    long[] attacksFrom;
+    // [color][square]
+    int[][] attackerCount;
+    // squares with at least one attacker, per color
+    long[] attacked;
+
+    // pieces whose attacks were removed by beginChange
+    private long affectedSquares;
+
+    public AttackMaps(BitboardPosition bitboards){
+        attacksFrom = new long[64];
+        attackerCount = new int[2][64];
+        attacked = new long[2];
+
+        for(long pieces = bitboards.occupied; pieces != 0; pieces &= pieces - 1){
+            addAttacks(bitboards, Long.numberOfTrailingZeros(pieces));
+        }
+    }
+
+    public AttackMaps(AttackMaps other){
+        attacksFrom = other.attacksFrom.clone();
+        attackerCount = new int[][]{other.attackerCount[0].clone(), other.attackerCount[1].clone()};
+        attacked = other.attacked.clone();
+    }
+
+    // same as the copy constructor but into the arrays of this one
+    void copyFrom(AttackMaps other){
+        System.arraycopy(other.attacksFrom, 0, attacksFrom, 0, attacksFrom.length);
+        System.arraycopy(other.attackerCount[0], 0, attackerCount[0], 0, attackerCount[0].length);
+        System.arraycopy(other.attackerCount[1], 0, attackerCount[1], 0, attackerCount[1].length);
+        System.arraycopy(other.attacked, 0, attacked, 0, attacked.length);
+    }
+
+    boolean isAttackedBy(int color, int square){
+        return attackerCount[color][square] > 0;
+    }
+
+    void beginChange(BitboardPosition bitboards, long changedSquares){
+        affectedSquares = changedSquares | getSlidersLookingAt(bitboards, changedSquares);
+
+        for(long pieces = affectedSquares & bitboards.occupied; pieces != 0; pieces &= pieces - 1){
+            removeAttacks(bitboards, Long.numberOfTrailingZeros(pieces));
+        }
+    }
+
+    void endChange(BitboardPosition bitboards){
+        for(long pieces = affectedSquares & bitboards.occupied; pieces != 0; pieces &= pieces - 1){
+            addAttacks(bitboards, Long.numberOfTrailingZeros(pieces));
+        }
+    }
+
+    // a slider's rays only change if it sees one of the changed squares
+    private long getSlidersLookingAt(BitboardPosition bitboards, long squares){
+        long bishopsAndQueens = bitboards.pieces[BitboardPosition.BISHOP] | bitboards.pieces[BitboardPosition.QUEEN]
+                | bitboards.pieces[BitboardPosition.BISHOP + 6] | bitboards.pieces[BitboardPosition.QUEEN + 6];
+        long rooksAndQueens = bitboards.pieces[BitboardPosition.ROOK] | bitboards.pieces[BitboardPosition.QUEEN]
+                | bitboards.pieces[BitboardPosition.ROOK + 6] | bitboards.pieces[BitboardPosition.QUEEN + 6];
+
+        long sliders = 0L;
+        for(; squares != 0; squares &= squares - 1){
+            int square = Long.numberOfTrailingZeros(squares);
+            sliders |= (Attacks.bishopAttacks(square, bitboards.occupied) & bishopsAndQueens)
+                    | (Attacks.rookAttacks(square, bitboards.occupied) & rooksAndQueens);
+        }
+        return sliders;
+    }
+
+    private void addAttacks(BitboardPosition bitboards, int square){
+        int piece = bitboards.getPieceOn(square);
+        int color = BitboardPosition.colorOf(piece);
+        long attacks = Attacks.getAttacks(piece, square, bitboards.occupied);
+        attacksFrom[square] = attacks;
+
+        int[] counts = attackerCount[color];
+        for(; attacks != 0; attacks &= attacks - 1){
+            int target = Long.numberOfTrailingZeros(attacks);
+            if(counts[target]++ == 0){
+                attacked[color] |= 1L << target;
+            }
+        }
+    }
+
+    private void removeAttacks(BitboardPosition bitboards, int square){
+        int color = BitboardPosition.colorOf(bitboards.getPieceOn(square));
+        long attacks = attacksFrom[square];
+        attacksFrom[square] = 0L;
+
+        int[] counts = attackerCount[color];
+        for(; attacks != 0; attacks &= attacks - 1){
+            int target = Long.numberOfTrailingZeros(attacks);
+            if(--counts[target] == 0){
+                attacked[color] &= ~(1L << target);
+            }
+        }
+    }
+
+    // compare with a recomputation from scratch (debug mode)
+    void verify(BitboardPosition bitboards){
+        AttackMaps recomputed = new AttackMaps(bitboards);
+
+        for(int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++){
+            if(attacked[color] != recomputed.attacked[color]){
+                throw new RuntimeException("ERROR: attacked squares out of sync!");
+            }
+            for(int square = 0; square < 64; square++){
+                if(attackerCount[color][square] != recomputed.attackerCount[color][square]){
+                    throw new RuntimeException("ERROR: attacker count out of sync on square " + square + "!");
+                }
+            }
+        }
+        for(int square = 0; square < 64; square++){
+            if(attacksFrom[square] != recomputed.attacksFrom[square]){
+                throw new RuntimeException("ERROR: attacks of piece on square " + square + " out of sync!");
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.chessengine;
+
+// precomputed attack tables, built once when the class is loaded
+// sliding pieces use magic bitboards: ((occupied & mask) * magic) >>> shift indexes a table holding every attack set of that square
+public class Attacks {
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    // [color][square] = squares a pawn of that color standing on square attacks
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    static final long[] ROOK_MASKS = new long[64];
+    static final long[] ROOK_MAGICS = new long[64];
+    static final int[] ROOK_SHIFTS = new int[64];
+    static final long[][] ROOK_TABLE = new long[64][];
+
+    static final long[] BISHOP_MASKS = new long[64];
+    static final long[] BISHOP_MAGICS = new long[64];
+    static final int[] BISHOP_SHIFTS = new int[64];
+    static final long[][] BISHOP_TABLE = new long[64][];
+
+    // squares strictly between two squares that share a line or diagonal (empty otherwise)
+    static final long[][] BETWEEN = new long[64][64];
+    // the whole line or diagonal through two squares, edge to edge (empty if they don't share one)
+    static final long[][] LINE = new long[64][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {1, -1}, {-1, 1}, {1, 1}};
+    private static final int[][] KNIGHT_DELTAS = {{-1, -2}, {1, -2}, {2, -1}, {2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}};
+    private static final int[][] KING_DELTAS = {{-1, -1}, {-1, 0}, {-1, 1}, {1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}};
+
+    // fixed seed so the magics (and therefore the tables) are the same on every start
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        initLeaperTables();
+        initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+        initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+        initLines();
+    }
+
+    static long rookAttacks(int square, long occupied){
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishopAttacks(int square, long occupied){
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    static long queenAttacks(int square, long occupied){
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    // attacks of a piece (pawns need the color)
+    static long getAttacks(int piece, int square, long occupied){
+        return switch(BitboardPosition.typeOf(piece)){
+            case BitboardPosition.PAWN -> PAWN_ATTACKS[BitboardPosition.colorOf(piece)][square];
+            case BitboardPosition.KNIGHT -> KNIGHT_ATTACKS[square];
+            case BitboardPosition.BISHOP -> bishopAttacks(square, occupied);
+            case BitboardPosition.ROOK -> rookAttacks(square, occupied);
+            case BitboardPosition.QUEEN -> queenAttacks(square, occupied);
+            default -> KING_ATTACKS[square];
+        };
+    }
+
+    private static void initLeaperTables(){
+        for(int square = 0; square < 64; square++){
+            int x = BitboardPosition.xOf(square);
+            int y = BitboardPosition.yOf(square);
+
+            KNIGHT_ATTACKS[square] = getLeaperAttacks(x, y, KNIGHT_DELTAS);
+            KING_ATTACKS[square] = getLeaperAttacks(x, y, KING_DELTAS);
+            // white pawns move up the board (towards y = 0)
+            PAWN_ATTACKS[BitboardPosition.WHITE][square] = getLeaperAttacks(x, y, new int[][]{{-1, -1}, {1, -1}});
+            PAWN_ATTACKS[BitboardPosition.BLACK][square] = getLeaperAttacks(x, y, new int[][]{{-1, 1}, {1, 1}});
+        }
+    }
+
+    private static long getLeaperAttacks(int x, int y, int[][] deltas){
+        long attacks = 0L;
+        for(int[] delta : deltas){
+            int toX = x + delta[0];
+            int toY = y + delta[1];
+            if(toX >= 0 && toX <= 7 && toY >= 0 && toY <= 7){
+                attacks |= 1L << BitboardPosition.toSquare(toX, toY);
+            }
+        }
+        return attacks;
+    }
+
+    // slow ray walk, only used to fill the tables
+    private static long getSlidingAttacks(int square, long occupied, int[][] directions){
+        long attacks = 0L;
+        for(int[] direction : directions){
+            int x = BitboardPosition.xOf(square) + direction[0];
+            int y = BitboardPosition.yOf(square) + direction[1];
+            while(x >= 0 && x <= 7 && y >= 0 && y <= 7){
+                long bit = 1L << BitboardPosition.toSquare(x, y);
+                attacks |= bit;
+                if((occupied & bit) != 0){
+                    break;
+                }
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // the squares whose occupancy matters (the last square of every ray is attacked no matter what)
+    private static long getRelevantOccupancyMask(int square, int[][] directions){
+        long mask = 0L;
+        for(int[] direction : directions){
+            int x = BitboardPosition.xOf(square) + direction[0];
+            int y = BitboardPosition.yOf(square) + direction[1];
+            while(x + direction[0] >= 0 && x + direction[0] <= 7 && y + direction[1] >= 0 && y + direction[1] <= 7){
+                mask |= 1L << BitboardPosition.toSquare(x, y);
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagics(int[][] directions, long[] masks, long[] magics, int[] shifts, long[][] tables){
+        for(int square = 0; square < 64; square++){
+            long mask = getRelevantOccupancyMask(square, directions);
+            int bits = Long.bitCount(mask);
+            int size = 1 << bits;
+
+            // enumerate every subset of the mask (carry-rippler trick)
+            long[] occupancies = new long[size];
+            long[] attacks = new long[size];
+            long subset = 0L;
+            for(int i = 0; i < size; i++){
+                occupancies[i] = subset;
+                attacks[i] = getSlidingAttacks(square, subset, directions);
+                subset = (subset - mask) & mask;
+            }
+
+            long[] table = new long[size];
+            // instead of clearing the table after every failed magic, remember in which attempt an entry was written
+            int[] usedInAttempt = new int[size];
+            int attempt = 0;
+
+            while(true){
+                long magic = nextSparseRandom();
+                // quick reject: the high byte of the product must have enough bits set to spread the index
+                if(Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6){
+                    continue;
+                }
+                attempt++;
+
+                boolean collision = false;
+                for(int i = 0; i < size && !collision; i++){
+                    int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                    if(usedInAttempt[index] != attempt){
+                        usedInAttempt[index] = attempt;
+                        table[index] = attacks[i];
+                    }
+                    // two occupancies may share an index only if they lead to the same attacks
+                    else if(table[index] != attacks[i]){
+                        collision = true;
+                    }
+                }
+                if(!collision){
+                    masks[square] = mask;
+                    magics[square] = magic;
+                    shifts[square] = 64 - bits;
+                    tables[square] = table;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void initLines(){
+        for(int from = 0; from < 64; from++){
+            for(int to = 0; to < 64; to++){
+                if(from == to){
+                    continue;
+                }
+                long fromBit = 1L << from;
+                long toBit = 1L << to;
+
+                int[][] directions = null;
+                if((getSlidingAttacks(from, 0L, ROOK_DIRECTIONS) & toBit) != 0){
+                    directions = ROOK_DIRECTIONS;
+                }
+                else if((getSlidingAttacks(from, 0L, BISHOP_DIRECTIONS) & toBit) != 0){
+                    directions = BISHOP_DIRECTIONS;
+                }
+
+                if(directions != null){
+                    BETWEEN[from][to] = getSlidingAttacks(from, toBit, directions) & getSlidingAttacks(to, fromBit, directions);
+                    LINE[from][to] = (getSlidingAttacks(from, 0L, directions) & getSlidingAttacks(to, 0L, directions)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    // xorshift64*, and-ing three numbers gives the sparse candidates magics need
+    private static long nextSparseRandom(){
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+
+    private static long nextRandom(){
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
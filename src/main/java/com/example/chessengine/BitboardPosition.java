@@ -0,0 +1,201 @@
+package com.example.chessengine;
+
+import java.util.Arrays;
+
+// twelve piece bitboards plus occupancy masks
+// squares are numbered like the Piece[][] grid: square = y * 8 + x (a8 = 0, h8 = 7, a1 = 56, h1 = 63)
+public class BitboardPosition {
+
+    // piece indices (white pieces first, black pieces are shifted by six)
+    static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+    static final int WHITE = 0, BLACK = 1;
+    static final int NO_PIECE = -1;
+
+    // same names the Piece classes print
+    private static final String[] PIECE_NAMES = {"wP", "wN", "wB", "wR", "wQ", "wK", "bP", "bN", "bB", "bR", "bQ", "bK"};
+
+    long[] pieces;
+    // one mask per color plus the union of both
+    long[] occupancy;
+    long occupied;
+
+    // piece index for every square (NO_PIECE when empty), avoids scanning all twelve bitboards
+    int[] pieceOn;
+
+    // zobrist keys of the pieces (all, pawns only, piece counts), updated with every add and remove
+    long key;
+    long pawnKey;
+    long materialKey;
+
+    public BitboardPosition(){
+        pieces = new long[12];
+        occupancy = new long[2];
+        occupied = 0L;
+        pieceOn = new int[64];
+        Arrays.fill(pieceOn, NO_PIECE);
+    }
+
+    public BitboardPosition(BitboardPosition other){
+        pieces = other.pieces.clone();
+        occupancy = other.occupancy.clone();
+        occupied = other.occupied;
+        pieceOn = other.pieceOn.clone();
+        key = other.key;
+        pawnKey = other.pawnKey;
+        materialKey = other.materialKey;
+    }
+
+    // same as the copy constructor but into the arrays of this one
+    void copyFrom(BitboardPosition other){
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        occupied = other.occupied;
+        System.arraycopy(other.pieceOn, 0, pieceOn, 0, pieceOn.length);
+        key = other.key;
+        pawnKey = other.pawnKey;
+        materialKey = other.materialKey;
+    }
+
+    // build from the piece view (starting position, FEN)
+    public BitboardPosition(Piece[][] position){
+        this();
+        for(int y = 0; y < 8; y++){
+            for(int x = 0; x < 8; x++){
+                if(position[y][x] != null){
+                    addPiece(getPieceIndex(position[y][x]), toSquare(x, y));
+                }
+            }
+        }
+    }
+
+    void addPiece(int piece, int square){
+        assert pieceOn[square] == NO_PIECE : "square already occupied";
+
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        occupancy[colorOf(piece)] |= bit;
+        occupied |= bit;
+        pieceOn[square] = piece;
+
+        updateKeys(piece, square, Long.bitCount(pieces[piece]) - 1);
+    }
+
+    void removePiece(int square){
+        int piece = pieceOn[square];
+        assert piece != NO_PIECE : "can't remove non-existing piece";
+
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        occupancy[colorOf(piece)] &= ~bit;
+        occupied &= ~bit;
+        pieceOn[square] = NO_PIECE;
+
+        updateKeys(piece, square, Long.bitCount(pieces[piece]));
+    }
+
+    // countIndex: how many pieces of the kind there are without this one
+    private void updateKeys(int piece, int square, int countIndex){
+        key ^= Zobrist.PIECE_SQUARE[piece][square];
+        materialKey ^= Zobrist.materialKey(piece, countIndex);
+        if(typeOf(piece) == PAWN){
+            pawnKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        }
+    }
+
+    // compare the incremental keys with a recomputation from scratch (debug mode)
+    void verifyKeys(){
+        BitboardPosition recomputed = new BitboardPosition();
+        for(int square = 0; square < 64; square++){
+            if(pieceOn[square] != NO_PIECE){
+                recomputed.addPiece(pieceOn[square], square);
+            }
+        }
+        if(key != recomputed.key || pawnKey != recomputed.pawnKey || materialKey != recomputed.materialKey){
+            throw new RuntimeException("ERROR: zobrist keys out of sync!");
+        }
+    }
+
+    void movePiece(int from, int to){
+        int piece = pieceOn[from];
+        removePiece(from);
+        addPiece(piece, to);
+    }
+
+    int getPieceOn(int square){
+        return pieceOn[square];
+    }
+
+    long getPieces(int color, int type){
+        return pieces[color * 6 + type];
+    }
+
+    boolean isEmpty(int square){
+        return (occupied & (1L << square)) == 0;
+    }
+
+    boolean isOccupiedBy(int color, int square){
+        return (occupancy[color] & (1L << square)) != 0;
+    }
+
+    int count(int color, int type){
+        return Long.bitCount(pieces[color * 6 + type]);
+    }
+
+    static int toSquare(int x, int y){
+        return y * 8 + x;
+    }
+
+    static int xOf(int square){
+        return square & 7;
+    }
+
+    static int yOf(int square){
+        return square >>> 3;
+    }
+
+    static int colorOf(int piece){
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    static int typeOf(int piece){
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    static int getPieceIndex(int color, int type){
+        return color * 6 + type;
+    }
+
+    static String pieceToString(int piece){
+        return PIECE_NAMES[piece];
+    }
+
+    static int colorIndex(PieceColor color){
+        return color == PieceColor.White ? WHITE : BLACK;
+    }
+
+    static int getPieceIndex(Piece piece){
+        int type;
+        if(piece instanceof Pawn){
+            type = PAWN;
+        }
+        else if(piece instanceof Knight){
+            type = KNIGHT;
+        }
+        else if(piece instanceof Bishop){
+            type = BISHOP;
+        }
+        else if(piece instanceof Rook){
+            type = ROOK;
+        }
+        else if(piece instanceof Queen){
+            type = QUEEN;
+        }
+        else if(piece instanceof King){
+            type = KING;
+        }
+        else{
+            throw new RuntimeException("Piece unknown!");
+        }
+        return getPieceIndex(colorIndex(piece.color), type);
+    }
+}
@@ -1,12 +1,36 @@
 package com.example.chessengine;
 
+import java.util.Arrays;
+
+// castling rights as bit flags, so storing and restoring them is a single int
 public class CastleRights {
-    boolean whiteCanShortCastle, whiteCanLongCastle, blackCanShortCastle, blackCanLongCastle;
 
-    public CastleRights(King whiteKing, King blackKing){
-        whiteCanShortCastle = whiteKing.canShortCastle;
-        whiteCanLongCastle = whiteKing.canLongCastle;
-        blackCanShortCastle = blackKing.canShortCastle;
-        blackCanLongCastle = blackKing.canLongCastle;
+    static final int WHITE_SHORT = 1, WHITE_LONG = 2, BLACK_SHORT = 4, BLACK_LONG = 8;
+    static final int ALL = WHITE_SHORT | WHITE_LONG | BLACK_SHORT | BLACK_LONG;
+
+    // rights that survive a move from or to the square
+    // king moves take away both rights, rook moves and rook captures in the corners take away one
+    static final int[] KEPT_AFTER_TOUCHING = getKeptAfterTouching();
+
+    static int shortCastle(int color){
+        return color == BitboardPosition.WHITE ? WHITE_SHORT : BLACK_SHORT;
+    }
+
+    static int longCastle(int color){
+        return color == BitboardPosition.WHITE ? WHITE_LONG : BLACK_LONG;
+    }
+
+    private static int[] getKeptAfterTouching(){
+        int[] kept = new int[64];
+        Arrays.fill(kept, ALL);
+
+        kept[BitboardPosition.toSquare(0, 0)] &= ~BLACK_LONG;
+        kept[BitboardPosition.toSquare(4, 0)] &= ~(BLACK_SHORT | BLACK_LONG);
+        kept[BitboardPosition.toSquare(7, 0)] &= ~BLACK_SHORT;
+
+        kept[BitboardPosition.toSquare(0, 7)] &= ~WHITE_LONG;
+        kept[BitboardPosition.toSquare(4, 7)] &= ~(WHITE_SHORT | WHITE_LONG);
+        kept[BitboardPosition.toSquare(7, 7)] &= ~WHITE_SHORT;
+        return kept;
     }
 }
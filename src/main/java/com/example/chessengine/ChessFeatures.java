@@ -14,133 +14,142 @@ public class ChessFeatures {
     boolean whiteKingSideSafe, whiteQueenSideSafe;
     boolean blackKingSideSafe, blackQueenSideSafe;
 
+    // d4, e4, d5, e5
+    static final long INNER_CENTER = getRectangle(3, 4);
+    // ring around the inner center (c3 to f6 without the inner center)
+    static final long OUTER_CENTER = getRectangle(2, 5) & ~INNER_CENTER;
+
+    // squares in front of a pawn on its own and the adjacent files, [color][square]
+    static final long[][] PAST_PAWN_MASKS = getPastPawnMasks();
+
     public ChessFeatures(Game game){
+        update(game);
+    }
+
+    // the search reuses one instance instead of allocating one per evaluation
+    public ChessFeatures(){
+    }
+
+    public void update(Game game){
+        numberOfWhitePastPawns = numberOfBlackPastPawns = 0;
+        pastPawnDistanceFromStartWhite = pastPawnDistanceFromStartBlack = 0;
+
         setPawnAndPieceStats(game);
         updateKingSafety(game);
-
     }
 
     // null = nobody can go for mate
     public static PieceColor canGoForMate(Game game){
         // game is not drawn by insufficient material if we make it this far
         // we can for sure go for mate if we are against a lone king
-        if(game.blackPieces.size() == 1){
+        if(Long.bitCount(game.bitboards.occupancy[BitboardPosition.BLACK]) == 1){
             return PieceColor.White;
         }
-        else if(game.whitePieces.size() == 1){
+        else if(Long.bitCount(game.bitboards.occupancy[BitboardPosition.WHITE]) == 1){
             return PieceColor.Black;
         }
         return null;
     }
 
     public static int getKingToKingDistance(Game game){
-        return Math.abs(game.whiteKing.x - game.blackKing.x) + Math.abs(game.whiteKing.y - game.blackKing.y);
+        int whiteKingSquare = game.getKingSquare(BitboardPosition.WHITE);
+        int blackKingSquare = game.getKingSquare(BitboardPosition.BLACK);
+        return Math.abs(BitboardPosition.xOf(whiteKingSquare) - BitboardPosition.xOf(blackKingSquare))
+                + Math.abs(BitboardPosition.yOf(whiteKingSquare) - BitboardPosition.yOf(blackKingSquare));
     }
 
     public static int getDistanceHuntedKingToTopLeftCorner(Game game, PieceColor whoIsHunted){
 
-        King huntedKing = whoIsHunted == PieceColor.White ? game.whiteKing : game.blackKing;
+        int huntedKingSquare = game.getKingSquare(BitboardPosition.colorIndex(whoIsHunted));
 
-        return Math.abs(huntedKing.x) + Math.abs(huntedKing.y);
+        return BitboardPosition.xOf(huntedKingSquare) + BitboardPosition.yOf(huntedKingSquare);
     }
 
     public static int recentNumberOfMovesOfHuntedKing(Game game, PieceColor whoIsHunted){
-        return whoIsHunted == PieceColor.White ? game.whiteKing.recentNumberOfPossibleMoves : game.blackKing.recentNumberOfPossibleMoves;
+        return game.recentNumberOfKingMoves[BitboardPosition.colorIndex(whoIsHunted)];
     }
 
     public void setPawnAndPieceStats(Game game){
 
-        int numberOfQueensOnBoard = 0;
-
-        for(int y = 0; y < 8; y++) {
-            for(int x = 0; x < 8; x++) {
-                Piece piece = game.position[y][x];
+        BitboardPosition bitboards = game.bitboards;
 
-                if(piece != null) {
-                    // update piece value
-                    piecesOnBoard += 1;
+        // update move count
+        numberOfPossibleMovesWhite = game.recentNumberOfPossibleMoves[BitboardPosition.WHITE];
+        numberOfPossibleMovesBlack = game.recentNumberOfPossibleMoves[BitboardPosition.BLACK];
 
-                    // for endgame play
-                    if(piece instanceof Queen){
-                        numberOfQueensOnBoard++;
-                    }
+        // pawns that are closer to finish line get more points
+        long whitePawns = bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.PAWN);
+        long blackPawns = bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.PAWN);
 
-                    // update move count
-                    if(piece.color == PieceColor.White){
-                        numberOfPossibleMovesWhite += piece.getRecentNumberOfPossibleMoves();
-                    }
-                    else{
-                        numberOfPossibleMovesBlack += piece.getRecentNumberOfPossibleMoves();
-                    }
-
-                    // pawns that are closer to finish line get more points
-                    if (piece instanceof Pawn && isPastPawn(game, piece, x, y)) {
-                        if (piece.color == PieceColor.White) {
-                            numberOfWhitePastPawns += 1;
-                            pastPawnDistanceFromStartWhite += Math.abs(y - 6);
-                        } else {
-                            numberOfBlackPastPawns += 1;
-                            pastPawnDistanceFromStartBlack += Math.abs(y - 1);
-                        }
-                    }
-                    // minor pieces in the center get extra points
-                    if (isPawnOrMinorPiece(piece)) {
-                        if ((x == 3 || x == 4) && (y == 3 || y == 4)) {
-
-                            if (piece.color == PieceColor.White) {
-                                numberOfWhitePiecesInInnerCenter += 1;
-                            } else {
-                                numberOfBlackPiecesInInnerCenter += 1;
-                            }
-                        } else if ((x >= 2 && x <= 5) && (y >= 2 && y <= 5)) {
-
-                            if (piece.color == PieceColor.White) {
-                                numberOfWhitePiecesInOuterCenter += 1;
-                            } else {
-                                numberOfBlackPiecesInOuterCenter += 1;
-                            }
-                        }
-                    }
-                    // they get discouraged (don't play Scandinavian Defense all the time)
-                    else if ((x >= 2 && x <= 5) && (y >= 2 && y <= 5)) {
-                        if (piece.color == PieceColor.White) {
-                            numberOfWhiteMajorPiecesInCenter += 1;
-                        } else {
-                            numberOfBlackMajorPiecesInCenter += 1;
-                        }
-                    }
-                }
+        for(long pawns = whitePawns; pawns != 0; pawns &= pawns - 1){
+            int square = Long.numberOfTrailingZeros(pawns);
+            if((PAST_PAWN_MASKS[BitboardPosition.WHITE][square] & blackPawns) == 0){
+                numberOfWhitePastPawns += 1;
+                pastPawnDistanceFromStartWhite += Math.abs(BitboardPosition.yOf(square) - 6);
             }
         }
+        for(long pawns = blackPawns; pawns != 0; pawns &= pawns - 1){
+            int square = Long.numberOfTrailingZeros(pawns);
+            if((PAST_PAWN_MASKS[BitboardPosition.BLACK][square] & whitePawns) == 0){
+                numberOfBlackPastPawns += 1;
+                pastPawnDistanceFromStartBlack += Math.abs(BitboardPosition.yOf(square) - 1);
+            }
+        }
+
+        // minor pieces in the center get extra points
+        long whitePawnsAndMinorPieces = whitePawns
+                | bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.KNIGHT)
+                | bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.BISHOP);
+        long blackPawnsAndMinorPieces = blackPawns
+                | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.KNIGHT)
+                | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.BISHOP);
+
+        numberOfWhitePiecesInInnerCenter = Long.bitCount(whitePawnsAndMinorPieces & INNER_CENTER);
+        numberOfBlackPiecesInInnerCenter = Long.bitCount(blackPawnsAndMinorPieces & INNER_CENTER);
+        numberOfWhitePiecesInOuterCenter = Long.bitCount(whitePawnsAndMinorPieces & OUTER_CENTER);
+        numberOfBlackPiecesInOuterCenter = Long.bitCount(blackPawnsAndMinorPieces & OUTER_CENTER);
+
+        // they get discouraged (don't play Scandinavian Defense all the time)
+        long whiteMajorPieces = bitboards.occupancy[BitboardPosition.WHITE] & ~whitePawnsAndMinorPieces;
+        long blackMajorPieces = bitboards.occupancy[BitboardPosition.BLACK] & ~blackPawnsAndMinorPieces;
+        numberOfWhiteMajorPiecesInCenter = Long.bitCount(whiteMajorPieces & (INNER_CENTER | OUTER_CENTER));
+        numberOfBlackMajorPiecesInCenter = Long.bitCount(blackMajorPieces & (INNER_CENTER | OUTER_CENTER));
+
+        // for endgame play
+        int numberOfQueensOnBoard = bitboards.count(BitboardPosition.WHITE, BitboardPosition.QUEEN)
+                + bitboards.count(BitboardPosition.BLACK, BitboardPosition.QUEEN);
+
+        piecesOnBoard = Long.bitCount(bitboards.occupied);
         isEndgame = numberOfQueensOnBoard == 0;
         piecesOffBoard = 32 - piecesOnBoard;
     }
 
-    boolean isPawnOrMinorPiece(Piece piece){
-        return piece instanceof Pawn || piece instanceof Bishop || piece instanceof Knight;
+    static long getRectangle(int from, int to){
+        long rectangle = 0L;
+        for(int y = from; y <= to; y++){
+            for(int x = from; x <= to; x++){
+                rectangle |= 1L << BitboardPosition.toSquare(x, y);
+            }
+        }
+        return rectangle;
     }
 
-    boolean isPastPawn(Game game, Piece piece, int x, int y){
-        int direction = piece.color == PieceColor.White ? -1 : 1;
-        for(int i = 1;; i++){
-            int rankChecked = y + i * direction;
-            if(rankChecked < 0 || rankChecked > 7){
-                return true;
-            }
-            // pawns left or right or in front?
-            Piece pieceToLeft = game.getPieceAt(new int[]{x - 1, rankChecked});
-            if(pieceToLeft instanceof Pawn && pieceToLeft.color == piece.color.getOppositeColor()){
-                return false;
-            }
-            Piece pieceToRight = game.getPieceAt(new int[]{x + 1, rankChecked});
-            if(pieceToRight instanceof Pawn && pieceToRight.color == piece.color.getOppositeColor()){
-                return false;
-            }
-            Piece pieceInFront = game.getPieceAt(new int[]{x, rankChecked});
-            if(pieceInFront instanceof Pawn && pieceInFront.color == piece.color.getOppositeColor()){
-                return false;
+    static long[][] getPastPawnMasks(){
+        long[][] masks = new long[2][64];
+        for(int square = 0; square < 64; square++){
+            int x = BitboardPosition.xOf(square);
+            int y = BitboardPosition.yOf(square);
+
+            for(int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++){
+                int direction = color == BitboardPosition.WHITE ? -1 : 1;
+                for(int rankChecked = y + direction; rankChecked >= 0 && rankChecked <= 7; rankChecked += direction){
+                    for(int file = Math.max(0, x - 1); file <= Math.min(7, x + 1); file++){
+                        masks[color][square] |= 1L << BitboardPosition.toSquare(file, rankChecked);
+                    }
+                }
             }
         }
+        return masks;
     }
 
     void updateKingSafety(Game game){
@@ -162,18 +171,20 @@ public class ChessFeatures {
         int direction = (color == PieceColor.White ? -1 : 1);
         int fileNum = Character.toLowerCase(file) - 'a';
 
-        return game.getPieceAt(new int[]{fileNum, pawnRow}) instanceof Pawn
-                || game.getPieceAt(new int[]{fileNum, pawnRow + direction}) instanceof  Pawn;
+        long pawns = game.bitboards.pieces[BitboardPosition.PAWN] | game.bitboards.pieces[BitboardPosition.PAWN + 6];
+        long shieldSquares = (1L << BitboardPosition.toSquare(fileNum, pawnRow)) | (1L << BitboardPosition.toSquare(fileNum, pawnRow + direction));
+
+        return (pawns & shieldSquares) != 0;
     }
 
-    boolean isSafe(King king){
-        if(king.color == PieceColor.White){
-            return (king.hasCastledShort && whiteKingSideSafe)
-                    || (king.hasCastledLong && whiteQueenSideSafe);
+    boolean isSafe(Game game, PieceColor color){
+        if(color == PieceColor.White){
+            return ((game.castlesDone & CastleRights.WHITE_SHORT) != 0 && whiteKingSideSafe)
+                    || ((game.castlesDone & CastleRights.WHITE_LONG) != 0 && whiteQueenSideSafe);
         }
         else{
-            return (king.hasCastledShort && blackKingSideSafe)
-                    || (king.hasCastledLong && blackQueenSideSafe);
+            return ((game.castlesDone & CastleRights.BLACK_SHORT) != 0 && blackKingSideSafe)
+                    || ((game.castlesDone & CastleRights.BLACK_LONG) != 0 && blackQueenSideSafe);
         }
     }
 }
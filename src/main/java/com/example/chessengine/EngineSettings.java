@@ -3,22 +3,59 @@ package com.example.chessengine;
 public class EngineSettings {
 
     boolean alphaBetaPruningEnabled;
+    // null windows for every move after the first one
+    boolean principalVariationSearchEnabled;
+    boolean nullMovePruningEnabled;
+    // late quiet moves are searched shallower first
+    boolean lateMoveReductionsEnabled;
+    // a null move cutoff at high depth has to be confirmed by a shallower search without null moves
+    boolean nullMoveVerificationEnabled;
     boolean moveSortingEnabled;
+    // losing captures are sorted last and skipped in quiescence, quiet moves that lose material are pruned near the leaves
+    boolean staticExchangeEvaluationEnabled;
     boolean autoQueenActivated;
     boolean quiescenceSearchEnabled;
-    boolean pvTablesEnabled;
+    boolean transpositionTableEnabled;
+    // direct memory instead of the java heap (for tables of several GB)
+    boolean offHeapTranspositionTableEnabled;
     boolean openingBookEnabled;
     int maxSecondsToRespond;
+    int numberOfThreads;
+    // how more than one thread is used (lazy SMP, root split or young brothers wait)
+    ParallelSearchMethod parallelSearchMethod;
+    // root split with a shared table (and move ordering tables kept between root moves) is faster but depends on the
+    // timing of the threads, deterministic gives every root move fresh tables: same result at a fixed depth for any number of threads
+    boolean deterministicRootSplitEnabled;
+    int transpositionTableSizeInMB;
+    // search the root in a window around the score of the last depth (doubled every time it fails)
+    boolean aspirationWindowsEnabled;
+    int aspirationWindowInCentipawns;
+    // only for the off-heap table
+    int transpositionTableAlignmentInKB;
 
     // ideal for playing 15|10 rapid chess
     public EngineSettings(){
         alphaBetaPruningEnabled = true;
+        principalVariationSearchEnabled = true;
+        nullMovePruningEnabled = true;
+        lateMoveReductionsEnabled = true;
+        nullMoveVerificationEnabled = true;
         moveSortingEnabled = true;
+        staticExchangeEvaluationEnabled = true;
         autoQueenActivated = true;
         quiescenceSearchEnabled = true;
-        pvTablesEnabled = true;
+        transpositionTableEnabled = true;
+        offHeapTranspositionTableEnabled = false;
         openingBookEnabled = true;
 
         maxSecondsToRespond = 15;
+        numberOfThreads = 1;
+        parallelSearchMethod = ParallelSearchMethod.LazySMP;
+        deterministicRootSplitEnabled = false;
+        transpositionTableSizeInMB = 64;
+        aspirationWindowsEnabled = true;
+        aspirationWindowInCentipawns = 50;
+        // huge page size
+        transpositionTableAlignmentInKB = 2048;
     }
 }
@@ -2,5 +2,28 @@ package com.example.chessengine;
 
 public abstract class EvaluationMethod {
 
-    public abstract double staticEvaluation(Game game);
+    // scores are in centipawns
+    // a mate is MATE_SCORE, the search turns it into MATE_SCORE - plies to the mate (so a quicker mate is better)
+    static final int MATE_SCORE = 1_000_000;
+    // out of reach for every score (the open window)
+    static final int INFINITE_SCORE = MATE_SCORE + 1;
+
+    // white's point of view
+    public abstract int staticEvaluation(Game game);
+
+    // every search thread evaluates with its own copy (evaluations can keep scratch state)
+    public abstract EvaluationMethod copy();
+
+    static boolean isMateScore(int score){
+        return Math.abs(score) >= MATE_SCORE - Minimax.MAX_PLY;
+    }
+
+    // in pawns, mates as "#3" (white mates in 3 moves) or "#-3"
+    static String scoreToString(int score){
+        if(isMateScore(score)){
+            int pliesToMate = MATE_SCORE - Math.abs(score);
+            return (score > 0 ? "#" : "#-") + (pliesToMate + 1) / 2;
+        }
+        return String.format("%.2f", score / 100.0);
+    }
 }
@@ -81,7 +81,7 @@ public class FeatureBasedEvaluationGUI {
         HBox queenSideSafe = getGUWithValue(queenSideSafeText, method.valueSingleCastleRight);
 
         Text isKingSafeText = new Text(
-                String.format("King safety: %b (w), %b (b)",features.isSafe(game.whiteKing), features.isSafe(game.blackKing)));
+                String.format("King safety: %b (w), %b (b)",features.isSafe(game, PieceColor.White), features.isSafe(game, PieceColor.Black)));
         HBox kingSafe = getGUWithValue(isKingSafeText, method.valueHavingCastled);
 
         // end game play
@@ -108,7 +108,7 @@ public class FeatureBasedEvaluationGUI {
         HBox distanceHuntedKingToTopLeft = getGUWithValue(distanceHuntedKingToTopLeftText, method.valueDistanceToTopLeftCorner);
 
         // final evaluation
-        Text finalEvaluationText = new Text(String.format("Evaluation: %.3f", method.staticEvaluation(game)));
+        Text finalEvaluationText = new Text("Evaluation: " + EvaluationMethod.scoreToString(method.staticEvaluation(game)));
 
         dialogVbox.getChildren().add(materialDifferenceText);
         dialogVbox.getChildren().add(valueDifferenceFactorText);
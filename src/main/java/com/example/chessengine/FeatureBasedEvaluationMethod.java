@@ -1,16 +1,10 @@
 package com.example.chessengine;
 
-import javafx.util.Pair;
-
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-
 public class FeatureBasedEvaluationMethod extends EvaluationMethod {
 
     // TODO: later make possible to load in from file for PSO optimization
 
-    // hyperparameters
+    // hyperparameters (in pawns, the evaluation is rounded to centipawns at the end)
     double valueInnerCenter = 0.25;
     double valueOuterCenter = 0.125;
 
@@ -24,8 +18,9 @@ public class FeatureBasedEvaluationMethod extends EvaluationMethod {
     // the more pieces come off the board, the bigger the difference gets
     double valueDifferenceSlope = 1.0 / 16.0;
 
-    // not inf since not checkmate yet, but it is super promising
-    double valueCanGoForMate = Integer.MAX_VALUE;
+    // not a mate score since not checkmate yet, but it is super promising
+    // (above everything else, the king components stay below 2000 pawns)
+    double valueCanGoForMate = 5000;
 
     // minimize those when your winning
     double valueKingToKingDistance = -50;
@@ -35,13 +30,35 @@ public class FeatureBasedEvaluationMethod extends EvaluationMethod {
 
     // encourages mobility
     double valuePerAdditionalPossibleMove = 0.01;
-    public double staticEvaluation(Game game){
+
+    private final ChessFeatures chessFeatures = new ChessFeatures();
+
+    // same hyperparameters, own features
+    @Override
+    public EvaluationMethod copy(){
+        FeatureBasedEvaluationMethod copy = new FeatureBasedEvaluationMethod();
+        copy.valueInnerCenter = valueInnerCenter;
+        copy.valueOuterCenter = valueOuterCenter;
+        copy.dangerValueInCenter = dangerValueInCenter;
+        copy.valuePastPawnDistanceFromStart = valuePastPawnDistanceFromStart;
+        copy.valueHavingCastled = valueHavingCastled;
+        copy.valueSingleCastleRight = valueSingleCastleRight;
+        copy.valueDifferenceSlope = valueDifferenceSlope;
+        copy.valueCanGoForMate = valueCanGoForMate;
+        copy.valueKingToKingDistance = valueKingToKingDistance;
+        copy.valueRestrictHuntedKing = valueRestrictHuntedKing;
+        copy.valueDistanceToTopLeftCorner = valueDistanceToTopLeftCorner;
+        copy.valuePerAdditionalPossibleMove = valuePerAdditionalPossibleMove;
+        return copy;
+    }
+
+    public int staticEvaluation(Game game){
 
         if(game.getOutcome() == Outcome.WhiteWon){
-            return Double.POSITIVE_INFINITY;
+            return MATE_SCORE;
         }
         else if(game.getOutcome() == Outcome.BlackWon){
-            return Double.NEGATIVE_INFINITY;
+            return -MATE_SCORE;
         }
         else if(game.getOutcome() == Outcome.Stalemate
                 || game.getOutcome() == Outcome.DrawByRepetition
@@ -61,152 +78,138 @@ public class FeatureBasedEvaluationMethod extends EvaluationMethod {
             double kingMobilityComponent = sign * valueRestrictHuntedKing * ChessFeatures.recentNumberOfMovesOfHuntedKing(game, huntedKingColor);
             double kingToTopLeftComponent = sign * valueDistanceToTopLeftCorner * ChessFeatures.getDistanceHuntedKingToTopLeftCorner(game, huntedKingColor);
 
-            return (sign * valueCanGoForMate) + kingToKingComponent + kingMobilityComponent + kingToTopLeftComponent;
+            return toCentipawns((sign * valueCanGoForMate) + kingToKingComponent + kingMobilityComponent + kingToTopLeftComponent);
         }
         else{
-            ChessFeatures chessFeatures = new ChessFeatures(game);
+            chessFeatures.update(game);
 
-            double castleRightEvaluation = getCastleRightValue(game.whiteKing, chessFeatures) - getCastleRightValue(game.blackKing, chessFeatures);
-            double kingSafetyEvaluation = getKingSafetyValue(game.whiteKing, chessFeatures) - getKingSafetyValue(game.blackKing, chessFeatures);
+            double castleRightEvaluation = getCastleRightValue(game, PieceColor.White, chessFeatures) - getCastleRightValue(game, PieceColor.Black, chessFeatures);
+            double kingSafetyEvaluation = getKingSafetyValue(game, PieceColor.White, chessFeatures) - getKingSafetyValue(game, PieceColor.Black, chessFeatures);
 
-            return getRawPieceCount(game) * getValueDifferenceFactor(chessFeatures.piecesOffBoard)
+            return toCentipawns(getRawPieceCount(game) * getValueDifferenceFactor(chessFeatures.piecesOffBoard)
                     + (chessFeatures.numberOfPossibleMovesWhite - chessFeatures.numberOfPossibleMovesBlack) * valuePerAdditionalPossibleMove
                     + (chessFeatures.numberOfWhitePiecesInInnerCenter - chessFeatures.numberOfBlackPiecesInInnerCenter) * valueInnerCenter
                     + (chessFeatures.numberOfWhitePiecesInOuterCenter - chessFeatures.numberOfWhitePiecesInInnerCenter) * valueOuterCenter
                     + (chessFeatures.pastPawnDistanceFromStartWhite - chessFeatures.pastPawnDistanceFromStartBlack) * valuePastPawnDistanceFromStart
                     + (!chessFeatures.isEndgame ? (chessFeatures.numberOfWhiteMajorPiecesInCenter - chessFeatures.numberOfBlackMajorPiecesInCenter) * dangerValueInCenter : 0)
                     + (!chessFeatures.isEndgame ? castleRightEvaluation : 0)
-                    + (!chessFeatures.isEndgame ? kingSafetyEvaluation : 0);
+                    + (!chessFeatures.isEndgame ? kingSafetyEvaluation : 0));
         }
     }
 
+    static int toCentipawns(double pawns){
+        return (int) Math.round(100 * pawns);
+    }
+
     public double getValueDifferenceFactor(int piecesOffBoard){
         return 1 + (piecesOffBoard * valueDifferenceSlope);
     }
 
-    double getCastleRightValue(King king, ChessFeatures features){
-        if(king.color == PieceColor.White){
-            return (king.canShortCastle && features.whiteKingSideSafe ? valueSingleCastleRight : 0)
-                    + (king.canLongCastle && features.whiteQueenSideSafe ? valueSingleCastleRight : 0);
+    double getCastleRightValue(Game game, PieceColor color, ChessFeatures features){
+        if(color == PieceColor.White){
+            return ((game.castleRights & CastleRights.WHITE_SHORT) != 0 && features.whiteKingSideSafe ? valueSingleCastleRight : 0)
+                    + ((game.castleRights & CastleRights.WHITE_LONG) != 0 && features.whiteQueenSideSafe ? valueSingleCastleRight : 0);
         }
         else{
-            return (king.canShortCastle && features.blackKingSideSafe ? valueSingleCastleRight : 0)
-                    + (king.canLongCastle && features.blackQueenSideSafe ? valueSingleCastleRight : 0);
+            return ((game.castleRights & CastleRights.BLACK_SHORT) != 0 && features.blackKingSideSafe ? valueSingleCastleRight : 0)
+                    + ((game.castleRights & CastleRights.BLACK_LONG) != 0 && features.blackQueenSideSafe ? valueSingleCastleRight : 0);
         }
     }
-    double getKingSafetyValue(King king, ChessFeatures features){
-        return features.isSafe(king) ? valueHavingCastled : 0;
+    double getKingSafetyValue(Game game, PieceColor color, ChessFeatures features){
+        return features.isSafe(game, color) ? valueHavingCastled : 0;
     }
 
-    static int getPieceValue(Piece piece){
-        if(piece instanceof Pawn){
-            return 1;
-        }
-        else if(piece instanceof Knight || piece instanceof Bishop){
-            return 3;
-        }
-        else if(piece instanceof Rook){
-            return 5;
-        }
-        else if(piece instanceof Queen){
-            return 9;
-        }
-        else if(piece instanceof King){
+    static int getPieceValue(int type){
+        return switch(type){
+            case BitboardPosition.PAWN -> 1;
+            case BitboardPosition.KNIGHT, BitboardPosition.BISHOP -> 3;
+            case BitboardPosition.ROOK -> 5;
+            case BitboardPosition.QUEEN -> 9;
             // for fear of overflow
-            return Integer.MAX_VALUE / 2;
-        }
-        else{
+            case BitboardPosition.KING -> Integer.MAX_VALUE / 2;
             // should never happen
-            throw new RuntimeException("ERROR: unknown piece!");
-        }
+            default -> throw new RuntimeException("ERROR: unknown piece!");
+        };
     }
 
+    // kings are left out (they're on the board for both sides and cancel out)
     static int getRawPieceCount(Game game){
+        BitboardPosition bitboards = game.bitboards;
         int count = 0;
 
-        for(int y = 0; y < 8; y++){
-            for(int x = 0; x < 8; x++){
-                Piece piece = game.position[y][x];
-                if(piece != null){
-
-                    if(piece.color == PieceColor.White){
-                        count += getPieceValue(piece);
-                    }
-                    else{
-                        count -= getPieceValue(piece);
-                    }
-                }
-            }
+        for(int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++){
+            int difference = bitboards.count(BitboardPosition.WHITE, type) - bitboards.count(BitboardPosition.BLACK, type);
+            count += difference * getPieceValue(type);
         }
         return count;
     }
 
-    public static double getCaptureValueDifference(Move move){
-        assert move.isCapture();
-        return getPieceValue(move.getCapturedPiece()) - getPieceValue(move.piece);
+    public static int getCaptureValueDifference(int move){
+        assert MoveEncoding.isCapture(move);
+        return getPieceValue(BitboardPosition.typeOf(MoveEncoding.getCapturedPiece(move)))
+                - getPieceValue(BitboardPosition.typeOf(MoveEncoding.getPiece(move)));
     }
 
-    // sort in place
-    public static void sortMoves(List<Move> moves){
-        moves.sort(FeatureBasedEvaluationMethod::compareCaptures);
+    // sort in place by value difference descending (highest one first)
+    // insertion sort, there are only a few captures per position
+    public static void sortCaptures(int[] moves, int numberOfMoves){
+        for(int i = 1; i < numberOfMoves; i++){
+            int move = moves[i];
+            int valueDifference = getCaptureValueDifference(move);
+            int j = i - 1;
+            while(j >= 0 && getCaptureValueDifference(moves[j]) < valueDifference){
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            moves[j + 1] = move;
+        }
     }
 
-    public static int compareCaptures(Move m1, Move m2){
-        // sort by value difference descending (highest one first)
-        double m1ValueDifference = getCaptureValueDifference(m1);
-        double m2ValueDifference = getCaptureValueDifference(m2);
-        return Double.compare(-m1ValueDifference, -m2ValueDifference);
-    }
+    // in pawns, more than any capture without the king can lose
+    private static final int MAX_CAPTURE_LOSS_FOR_ORDERING = 100;
 
-    public static Pair<Move, Integer> getTag(Move move){
-        // high priority is good
-        return new Pair<>(move, getPriority(move));
+    // high priority is good
+    public static void scoreMoves(int[] moves, int[] scores, int numberOfMoves, int pvMove){
+        for(int i = 0; i < numberOfMoves; i++){
+            boolean sameMove = pvMove != MoveEncoding.NO_MOVE && MoveEncoding.isSameMove(moves[i], pvMove);
+            scores[i] = getPriority(moves[i]) + (sameMove ? 100000 : 0);
+        }
     }
 
-    private static int getPriority(Move move){
-        int priority =  10000 * (move.isCheck() ? 1 : 0);
-        priority +=     5000 * (move.isCapture() ? 1 : 0);
-        priority +=     100 * (move.isCapture() ? getCaptureValueDifference(move) : 0);
-        priority +=     5000 * (move.isPromotion() ? 1 : 0);
-        priority +=     10 * getMobilityScore(move.piece);
+    private static int getPriority(int move){
+        int priority =  10000 * (MoveEncoding.isCheck(move) ? 1 : 0);
+        priority +=     5000 * (MoveEncoding.isCapture(move) ? 1 : 0);
+        // bounded so the king's value doesn't overflow (captures with the king still go after the quiet moves)
+        priority +=     100 * (MoveEncoding.isCapture(move) ? Math.max(-MAX_CAPTURE_LOSS_FOR_ORDERING, getCaptureValueDifference(move)) : 0);
+        priority +=     5000 * (MoveEncoding.isPromotion(move) ? 1 : 0);
+        priority +=     10 * getMobilityScore(BitboardPosition.typeOf(MoveEncoding.getPiece(move)));
         return priority;
     }
 
-    public static Pair<Move, Integer> getTag(Move move, Move pvMove){
-        boolean sameMove =  move.piece == pvMove.piece &&
-                (move.endingPosition[0] == pvMove.endingPosition[0]) &&
-                (move.endingPosition[1] == pvMove.endingPosition[1]);
-
-        int priority = getPriority(move) + (sameMove ? 100000 : 0);
-
-        return new Pair<>(move, priority);
-    }
-
-    public static List<Move> sortMovesByTags(List<Pair<Move, Integer>> tags){
-        List<Move> sortedMoves = new ArrayList<>(tags.size());
-        tags.sort(Comparator.comparingInt(t -> -t.getValue()));
-        for(Pair<Move, Integer> tag : tags){
-            sortedMoves.add(tag.getKey());
+    // stable insertion sort on both arrays, highest score first
+    public static void sortByScores(int[] moves, int[] scores, int numberOfMoves){
+        for(int i = 1; i < numberOfMoves; i++){
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while(j >= 0 && scores[j] < score){
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
         }
-        return sortedMoves;
     }
 
-    private static int getMobilityScore(Piece piece){
-        if(piece instanceof Queen){
-            return 5;
-        }
-        else if(piece instanceof Rook){
-            return 4;
-        }
-        else if(piece instanceof Bishop){
-            return 3;
-        }
-        else if(piece instanceof Knight){
-            return 2;
-        }
-        else if(piece instanceof King){
-            return 1;
-        }
-        return 0;
+    private static int getMobilityScore(int type){
+        return switch(type){
+            case BitboardPosition.QUEEN -> 5;
+            case BitboardPosition.ROOK -> 4;
+            case BitboardPosition.BISHOP -> 3;
+            case BitboardPosition.KNIGHT -> 2;
+            case BitboardPosition.KING -> 1;
+            default -> 0;
+        };
     }
 }
@@ -4,348 +4,250 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.*;
-import java.util.function.BiFunction;
 
 public class Game {
 
-    Piece[][] position;
-    Stack<Move> executedMoves;
-    Stack<CastleRights> storedCastleRights;
-    PieceColor whoseTurn;
+    static final String STARTING_POSITION_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    static final int NO_SQUARE = -1;
 
-    // references to kings important for castle rights, game over etc
-    // gets set in getStartingPosition()
+    // the state makeMove/undoMove operate on
+    BitboardPosition bitboards;
+    PieceColor whoseTurn;
+    // CastleRights flags
+    int castleRights;
+    // CastleRights flags of the castlings that were played (king safety)
+    int castlesDone;
+    // square the last double pawn push skipped (NO_SQUARE if the last move wasn't one)
+    int enPassantSquare;
+
+    // executed moves with the state before them (its keys are scanned for repetitions)
+    UndoStack undoStack;
+
+    // zobrist key of the position (the bitboards hash the pieces, side to move, castling and en passant are added here)
+    long key;
+
+    // updated on every make/undo (verified against a recomputation in debug mode)
+    AttackMaps attackMaps;
+    // of the side to move, computed once per position and restored on undo
+    long checkers;
+    long pinnedPieces;
+
+    // Piece-based view of the bitboards for the GUI
+    // rebuilt after executeMove/undoLastMove, the search doesn't touch it
+    Piece[][] position;
     King whiteKing, blackKing;
-
     List<Piece> whitePieces, blackPieces;
 
-    Stack<String> history;
+    // debug mode only
     Stack<String> boardHistory;
 
     boolean debugOn = false;
     boolean enPassantEnabled = true;
 
-    HashMap<String, Integer> repetitionsPerPosition;
-
     Outcome outcome;
 
     int repetitionsOfReachedPosition;
 
     // for 50 move rule
-    Stack<Integer> storedNumberOfMovesWithoutProgress;
     int numberOfMovesWithoutProgress;
 
     boolean isWhiteKingInCheck, isBlackKingInCheck;
 
-    public Game(){
-        position = getStartingPosition();
-        setWhitePiecesAndBlackPieces();
+    // number of legal moves per color at the last generation (mobility for the evaluation)
+    int[] recentNumberOfPossibleMoves;
+    int[] recentNumberOfKingMoves;
 
-        whoseTurn = PieceColor.White;
+    // scratch buffers (the search brings its own)
+    private final int[] moveBuffer;
 
-        history = new Stack<>();
+    public Game(){
         boardHistory = new Stack<>();
 
-        boardHistory.push(this.toString());
-
-        executedMoves = new Stack<>();
-        storedCastleRights = new Stack<>();
+        undoStack = new UndoStack(256);
 
-        repetitionsPerPosition = new HashMap<>();
-        outcome = Outcome.Open;
-        storedNumberOfMovesWithoutProgress = new Stack<>();
-        numberOfMovesWithoutProgress = 0;
-
-        isWhiteKingInCheck = false;
-        isBlackKingInCheck = false;
-    }
-
-    private void setWhitePiecesAndBlackPieces(){
-
-        whitePieces = new ArrayList<>();
-        blackPieces = new ArrayList<>();
-
-        for(int y = 0; y < 8; y++){
-            for(int x = 0; x < 8; x++){
-                if(position[y][x] != null){
-                    Piece piece = position[y][x];
-
-                    if(piece.color == PieceColor.White){
-                        whitePieces.add(piece);
-                    }
-                    else{
-                        blackPieces.add(piece);
-                    }
-                }
-            }
-        }
-    }
+        recentNumberOfPossibleMoves = new int[2];
+        recentNumberOfKingMoves = new int[2];
 
-    Piece[] getPieceRow(PieceColor color){
-        int y = color == PieceColor.White ? 7 : 0;
-        King king = new King(color, 4, y,this);
-        // add reference
-        if(color == PieceColor.White){
-            whiteKing = king;
-        }
-        else{
-            blackKing = king;
-        }
-        return new Piece[]{
-                new Rook(color, 0, y, this),
-                new Knight(color, 1, y, this),
-                new Bishop(color, 2, y, this),
-                new Queen(color, 3, y, this),
-                king,
-                new Bishop(color, 5, y, this),
-                new Knight(color, 6, y, this),
-                new Rook(color, 7, y, this)
-        };
-    }
+        moveBuffer = new int[MoveGenerator.MAX_MOVES];
 
-    Piece[] getPawnRow(PieceColor color){
-        Piece[] pawns = new Piece[8];
-        for(int i = 0; i < 8; i++){
-            pawns[i] = new Pawn(color, i, color == PieceColor.White ? 6 : 1, this);
-        }
-        return pawns;
-    }
-
-    Piece[][] getStartingPosition(){
-        // looking at the board from the white player's perspective
-        return new Piece[][]{
-                getPieceRow(PieceColor.Black),
-                getPawnRow(PieceColor.Black),
-                new Piece[8],
-                new Piece[8],
-                new Piece[8],
-                new Piece[8],
-                getPawnRow(PieceColor.White),
-                getPieceRow(PieceColor.White)
-        };
+        loadFromFEN(STARTING_POSITION_FEN);
     }
 
-    // testing for check happens after move is executed
-    void undoLastMove(){
-        if(!executedMoves.isEmpty()) {
-
-            // delete for 3-fold repetition rule
-            String boardString = GameUtils.boardToString(this);
-            repetitionsOfReachedPosition = repetitionsPerPosition.get(boardString) - 1;
-            if(repetitionsOfReachedPosition == 0){
-                repetitionsPerPosition.remove(boardString);
-            }else{
-                repetitionsPerPosition.put(boardString, repetitionsOfReachedPosition);
-            }
-
-            Move move = executedMoves.pop();
-            numberOfMovesWithoutProgress = storedNumberOfMovesWithoutProgress.pop();
+    // independent copy including the move history (every search thread works on its own game)
+    public Game(Game other){
+        bitboards = new BitboardPosition(other.bitboards);
+        attackMaps = new AttackMaps(other.attackMaps);
+        undoStack = new UndoStack(other.undoStack);
 
-            if(move.isCastle()){
-                undoCastling(move);
-            }
-            else {
-                // replace first by pawn again and then move back
-                if (move.isPromotion()) {
-                    placePieceAt(move.piece, move.endingPosition);
-
-                    // update piece lists
-                    removePieceFromList(move.getPromotedTo());
-                    addPieceToList(move.piece);
-                }
-
-                movePiece(move.endingPosition, move.startingPosition);
+        whoseTurn = other.whoseTurn;
+        castleRights = other.castleRights;
+        castlesDone = other.castlesDone;
+        enPassantSquare = other.enPassantSquare;
+        key = other.key;
+        checkers = other.checkers;
+        pinnedPieces = other.pinnedPieces;
 
-                if (move.isCapture()) {
-                    placePieceAt(move.getCapturedPiece(), move.getCapturedPiece().getPosition());
-
-                    // update piece list
-                    addPieceToList(move.getCapturedPiece());
-                }
-            }
-            // castling rights are stored at every time step
-            loadLastCastleRights();
+        boardHistory = new Stack<>();
+        boardHistory.addAll(other.boardHistory);
+        debugOn = other.debugOn;
+        enPassantEnabled = other.enPassantEnabled;
 
-            if(debugOn) {
-                boardHistory.pop();
-            }
-            history.pop();
+        outcome = other.outcome;
+        repetitionsOfReachedPosition = other.repetitionsOfReachedPosition;
+        numberOfMovesWithoutProgress = other.numberOfMovesWithoutProgress;
+        isWhiteKingInCheck = other.isWhiteKingInCheck;
+        isBlackKingInCheck = other.isBlackKingInCheck;
 
-            // if a move was executed, game must have been open beforehand
-            outcome = Outcome.Open;
-            changeTurns();
+        recentNumberOfPossibleMoves = other.recentNumberOfPossibleMoves.clone();
+        recentNumberOfKingMoves = other.recentNumberOfKingMoves.clone();
 
-            // load old repetition value
-            repetitionsOfReachedPosition = repetitionsPerPosition.getOrDefault(GameUtils.boardToString(this), 1);
-        }
-    }
+        moveBuffer = new int[MoveGenerator.MAX_MOVES];
 
-    void addPieceToList(Piece piece){
-        if(piece.color == PieceColor.White){
-            whitePieces.add(piece);
-        }
-        else{
-            blackPieces.add(piece);
-        }
-    }
-
-    void removePieceFromList(Piece piece){
-        if(piece.color == PieceColor.White){
-            whitePieces.remove(piece);
-        }
-        else{
-            blackPieces.remove(piece);
-        }
+        updatePieceView();
     }
 
-    void loadLastCastleRights(){
-        CastleRights lastCastleRights = storedCastleRights.pop();
-        whiteKing.canShortCastle = lastCastleRights.whiteCanShortCastle;
-        whiteKing.canLongCastle = lastCastleRights.whiteCanLongCastle;
-        blackKing.canShortCastle = lastCastleRights.blackCanShortCastle;
-        blackKing.canLongCastle = lastCastleRights.blackCanLongCastle;
-    }
+    // takes over the position and move history of another game, without the GUI view and without allocating
+    // (search threads that already have a game of their own)
+    void copySearchStateFrom(Game other){
+        bitboards.copyFrom(other.bitboards);
+        attackMaps.copyFrom(other.attackMaps);
+        undoStack.copyFrom(other.undoStack);
 
-    void undoCastling(Move move){
-        King kingWhoCastled = (King)move.piece;
-        int kingRow = kingWhoCastled.color == PieceColor.White ? 7 : 0;
+        whoseTurn = other.whoseTurn;
+        castleRights = other.castleRights;
+        castlesDone = other.castlesDone;
+        enPassantSquare = other.enPassantSquare;
+        key = other.key;
+        checkers = other.checkers;
+        pinnedPieces = other.pinnedPieces;
 
-        if(move.isShortCastle){
-            // move king
-            movePiece(new int[]{6, kingRow}, new int[]{4, kingRow});
-            // move rook
-            movePiece(new int[]{5, kingRow}, new int[]{7, kingRow});
-
-            kingWhoCastled.hasCastledShort = false;
+        // only kept in debug mode (undoMove pops it)
+        debugOn = other.debugOn;
+        if(debugOn){
+            boardHistory.clear();
+            boardHistory.addAll(other.boardHistory);
         }
-        else{
-            // move king
-            movePiece(new int[]{2, kingRow}, new int[]{4, kingRow});
-            // move rook
-            movePiece(new int[]{3, kingRow}, new int[]{0, kingRow});
+        enPassantEnabled = other.enPassantEnabled;
 
-            kingWhoCastled.hasCastledLong = false;
-        }
-    }
+        outcome = other.outcome;
+        repetitionsOfReachedPosition = other.repetitionsOfReachedPosition;
+        numberOfMovesWithoutProgress = other.numberOfMovesWithoutProgress;
+        isWhiteKingInCheck = other.isWhiteKingInCheck;
+        isBlackKingInCheck = other.isBlackKingInCheck;
 
-    void placePieceAt(Piece piece, int[] destination){
-        if(piece != null) {
-            piece.setPosition(destination);
-        }
-        position[destination[1]][destination[0]] = piece;
+        System.arraycopy(other.recentNumberOfPossibleMoves, 0, recentNumberOfPossibleMoves, 0, recentNumberOfPossibleMoves.length);
+        System.arraycopy(other.recentNumberOfKingMoves, 0, recentNumberOfKingMoves, 0, recentNumberOfKingMoves.length);
     }
 
-    void movePiece(int[] startingPosition, int[] endingPosition){
-        Piece toBeMoved = getPieceAt(startingPosition);
-        assert toBeMoved != null : "can't move non-existing piece";
+    // rebuild the Piece objects the GUI works with
+    void updatePieceView(){
+        position = new Piece[8][8];
+        whitePieces = new ArrayList<>();
+        blackPieces = new ArrayList<>();
 
-        placePieceAt(toBeMoved, endingPosition);
-        placePieceAt(null, startingPosition);
+        for(int square = 0; square < 64; square++){
+            int piece = bitboards.getPieceOn(square);
+            if(piece == BitboardPosition.NO_PIECE){
+                continue;
+            }
+            Piece pieceView = createPiece(piece, BitboardPosition.xOf(square), BitboardPosition.yOf(square));
+            position[pieceView.y][pieceView.x] = pieceView;
 
-        toBeMoved.setPosition(endingPosition);
-    }
-    void movePiece(Move move){
-        movePiece(move.startingPosition, move.endingPosition);
-    }
-    void updateCastleRights(Move move){
-        // rook is captured - castling right is lost
-        if(move.isCapture() && move.getCapturedPiece() instanceof Rook capturedRook){
-            removeCastleRightAfterRookCapture(capturedRook);
-        }
-        if(move.piece instanceof Rook movedRook){
-            removeCastleRightAfterRookMove(movedRook, move.startingPosition);
-        }
-        // when king moves, both castling rights are taken away
-        if(move.piece instanceof King king){
-            king.canLongCastle = false;
-            king.canShortCastle = false;
+            if(pieceView.color == PieceColor.White){
+                whitePieces.add(pieceView);
+            }
+            else{
+                blackPieces.add(pieceView);
+            }
+
+            if(pieceView instanceof King king){
+                if(king.color == PieceColor.White){
+                    whiteKing = king;
+                }
+                else{
+                    blackKing = king;
+                }
+            }
         }
     }
 
-    void castle(Move move){
-        King kingWhoCastled = (King)move.piece;
-        int kingRow = kingWhoCastled.color == PieceColor.White ? 7 : 0;
-
-        if(move.isShortCastle){
-            // move king
-            movePiece(new int[]{4, kingRow}, new int[]{6, kingRow});
-            // move rook
-            movePiece(new int[]{7, kingRow}, new int[]{5, kingRow});
-
-            kingWhoCastled.hasCastledShort = true;
-        }
-        else{
-            // move king
-            movePiece(new int[]{4, kingRow}, new int[]{2, kingRow});
-            // move rook
-            movePiece(new int[]{0, kingRow}, new int[]{3, kingRow});
+    private Piece createPiece(int piece, int x, int y){
+        PieceColor color = BitboardPosition.colorOf(piece) == BitboardPosition.WHITE ? PieceColor.White : PieceColor.Black;
 
-            kingWhoCastled.hasCastledLong = true;
-        }
+        return switch(BitboardPosition.typeOf(piece)){
+            case BitboardPosition.PAWN -> new Pawn(color, x, y, this);
+            case BitboardPosition.KNIGHT -> new Knight(color, x, y, this);
+            case BitboardPosition.BISHOP -> new Bishop(color, x, y, this);
+            case BitboardPosition.ROOK -> new Rook(color, x, y, this);
+            case BitboardPosition.QUEEN -> new Queen(color, x, y, this);
+            default -> new King(color, x, y, this);
+        };
     }
 
     public void executeMove(Move move){
-        executeMove(move, true);
+        makeMove(move.encoded);
+        updatePieceView();
     }
 
-    public void executePossiblyIllegalMove(Move move){
-        executeMove(move, false);
+    void undoLastMove(){
+        undoMove();
+        updatePieceView();
     }
 
-    private void executeMove(Move move, boolean guaranteedToBeLegal){
+    public void makeMove(int move){
 
-        assert GameUtils.insideBoard(move.endingPosition) : "ERROR: illegal move!";
         assert !isOver() : "ERROR: game is over!";
-        assert !(move.getCapturedPiece() instanceof King) : "ERROR: illegal king capture!";
+        assert !isKingCapture(move) : "ERROR: illegal king capture!";
+
+        undoStack.push(move, castleRights, enPassantSquare, numberOfMovesWithoutProgress, key, checkers, pinnedPieces);
 
-        storedCastleRights.push(new CastleRights(whiteKing, blackKing));
-        storedNumberOfMovesWithoutProgress.push(numberOfMovesWithoutProgress);
+        int from = MoveEncoding.getFrom(move);
+        int to = MoveEncoding.getTo(move);
+        int piece = MoveEncoding.getPiece(move);
 
         // for 50 move rule
-        if(move.isCapture() || move.piece instanceof Pawn){
+        if(MoveEncoding.isCapture(move) || BitboardPosition.typeOf(piece) == BitboardPosition.PAWN){
             numberOfMovesWithoutProgress = 0;
         }
         else{
             numberOfMovesWithoutProgress++;
         }
 
-        // move rook as well (we assume it's at the right position
-        if(move.isCastle()){
-            castle(move);
-        }
-        else{
-            movePiece(move);
+        attackMaps.beginChange(bitboards, getChangedSquares(move));
+
+        // remove captured piece
+        if(MoveEncoding.isCapture(move)){
+            bitboards.removePiece(MoveEncoding.isEnPassant(move) ? getEnPassantCaptureSquare(move) : to);
         }
-        // a pawn is removed without landing on its square
-        if(move.isEnPassantCapture()){
-            placePieceAt(null, move.getCapturedPiece().getPosition());
 
-            // we don't need to update piece list here since an en passant capture is always marked as isCapture
+        bitboards.movePiece(from, to);
+
+        if(MoveEncoding.isPromotion(move)){
+            bitboards.removePiece(to);
+            bitboards.addPiece(MoveEncoding.getPromotedTo(move), to);
         }
 
-        // remove captured piece
-        if(move.isCapture()){
-            removePieceFromList(move.getCapturedPiece());
+        // move rook as well (we assume it's at the right position)
+        if(MoveEncoding.isCastle(move)){
+            bitboards.movePiece(getCastlingRookFrom(move), getCastlingRookTo(move));
+            castlesDone |= getCastleFlag(move);
         }
 
-        updateCastleRights(move);
+        attackMaps.endChange(bitboards);
 
-        if(move.isPromotion()){
-            placePieceAt(move.getPromotedTo(), move.endingPosition);
+        castleRights &= CastleRights.KEPT_AFTER_TOUCHING[from] & CastleRights.KEPT_AFTER_TOUCHING[to];
+        enPassantSquare = MoveEncoding.isDoublePawnPush(move) ? (from + to) / 2 : NO_SQUARE;
 
-            // remove pawn and add new piece
-            removePieceFromList(move.piece);
-            addPieceToList(move.getPromotedTo());
-        }
+        setOwnKingOutOfCheck();
+
+        changeTurns();
+        updateKey();
 
         if(debugOn) {
             boardHistory.push(this.toString());
         }
-        history.push(move.asSAN());
 
-        String boardString = GameUtils.boardToString(this);
-        repetitionsOfReachedPosition = repetitionsPerPosition.getOrDefault(boardString, 0) + 1;
-        repetitionsPerPosition.put(boardString, repetitionsOfReachedPosition);
+        repetitionsOfReachedPosition = countRepetitions();
 
         if(repetitionsOfReachedPosition == 3){
             outcome = Outcome.DrawByRepetition;
@@ -355,55 +257,186 @@ public class Game {
         }
 
         // check after every capture
-        if(move.isCapture() && isDrawByInsufficientMaterial()){
+        if(MoveEncoding.isCapture(move) && isDrawByInsufficientMaterial()){
             outcome = Outcome.DrawByInsufficientMaterial;
         }
 
-        if(guaranteedToBeLegal){
-            setOwnKingOutOfCheck();
+        updateCheckersAndPinnedPieces();
+
+        if(debugOn){
+            attackMaps.verify(bitboards);
+            bitboards.verifyKeys();
         }
+    }
 
-        executedMoves.push(move);
+    // testing for check happens after move is executed
+    public void undoMove(){
+        if(undoStack.size > 0) {
 
-        changeTurns();
-    }
+            int entry = undoStack.pop();
+            int move = undoStack.moves[entry];
+            int from = MoveEncoding.getFrom(move);
+            int to = MoveEncoding.getTo(move);
 
-    boolean isDrawByInsufficientMaterial(){
-        Bishop singleWhiteBishop = null;
-        Bishop singleBlackBishop = null;
-        int numberOfWhiteKnights = 0;
-        int numberOfWhiteBishops = 0;
-        int numberOfBlackKnights = 0;
-        int numberOfBlackBishops = 0;
-
-        for(Piece piece : whitePieces){
-            if(piece instanceof Pawn || piece instanceof Rook || piece instanceof Queen){
-                return false;
+            attackMaps.beginChange(bitboards, getChangedSquares(move));
+
+            if(MoveEncoding.isCastle(move)){
+                bitboards.movePiece(getCastlingRookTo(move), getCastlingRookFrom(move));
+                castlesDone &= ~getCastleFlag(move);
+            }
+
+            // replace first by pawn again and then move back
+            if(MoveEncoding.isPromotion(move)){
+                bitboards.removePiece(to);
+                bitboards.addPiece(MoveEncoding.getPiece(move), to);
             }
-            else if(piece instanceof Bishop bishop){
-                singleWhiteBishop = bishop;
-                numberOfWhiteBishops++;
+
+            bitboards.movePiece(to, from);
+
+            if(MoveEncoding.isCapture(move)){
+                bitboards.addPiece(MoveEncoding.getCapturedPiece(move), MoveEncoding.isEnPassant(move) ? getEnPassantCaptureSquare(move) : to);
             }
-            else if(piece instanceof Knight){
-                numberOfWhiteKnights++;
+
+            attackMaps.endChange(bitboards);
+
+            castleRights = undoStack.castleRights[entry];
+            enPassantSquare = undoStack.enPassantSquares[entry];
+            numberOfMovesWithoutProgress = undoStack.numberOfMovesWithoutProgress[entry];
+            key = undoStack.keys[entry];
+            checkers = undoStack.checkers[entry];
+            pinnedPieces = undoStack.pinnedPieces[entry];
+
+            if(debugOn) {
+                boardHistory.pop();
+            }
+
+            // if a move was executed, game must have been open beforehand
+            outcome = Outcome.Open;
+            changeTurns();
+
+            // old repetition value
+            repetitionsOfReachedPosition = countRepetitions();
+
+            if(debugOn){
+                attackMaps.verify(bitboards);
+                bitboards.verifyKeys();
+
+                long restoredKey = key;
+                updateKey();
+                if(key != restoredKey){
+                    throw new RuntimeException("ERROR: restored key doesn't match the position!");
+                }
             }
         }
+    }
+
+    // passes the turn (null move pruning), only the search does this and never in check
+    void makeNullMove(){
+        assert checkers == 0 : "ERROR: null move in check!";
+
+        undoStack.push(MoveEncoding.NO_MOVE, castleRights, enPassantSquare, numberOfMovesWithoutProgress, key, checkers, pinnedPieces);
+
+        // repetitions don't reach back over a passed turn
+        numberOfMovesWithoutProgress = 0;
+        enPassantSquare = NO_SQUARE;
+
+        changeTurns();
+        updateKey();
+        updateCheckersAndPinnedPieces();
+    }
+
+    void undoNullMove(){
+        int entry = undoStack.pop();
+        assert undoStack.moves[entry] == MoveEncoding.NO_MOVE : "ERROR: last move wasn't a null move!";
+
+        enPassantSquare = undoStack.enPassantSquares[entry];
+        numberOfMovesWithoutProgress = undoStack.numberOfMovesWithoutProgress[entry];
+        key = undoStack.keys[entry];
+        checkers = undoStack.checkers[entry];
+        pinnedPieces = undoStack.pinnedPieces[entry];
+
+        // the search behind the null move may have ended the game (e.g. stalemate of the side that didn't move)
+        outcome = Outcome.Open;
+        changeTurns();
+        repetitionsOfReachedPosition = countRepetitions();
+    }
+
+    boolean isLastMoveNullMove(){
+        return undoStack.size > 0 && undoStack.moves[undoStack.size - 1] == MoveEncoding.NO_MOVE;
+    }
+
+    // every square whose occupancy changes with the move
+    static long getChangedSquares(int move){
+        long changedSquares = (1L << MoveEncoding.getFrom(move)) | (1L << MoveEncoding.getTo(move));
+        if(MoveEncoding.isEnPassant(move)){
+            changedSquares |= 1L << getEnPassantCaptureSquare(move);
+        }
+        if(MoveEncoding.isCastle(move)){
+            changedSquares |= (1L << getCastlingRookFrom(move)) | (1L << getCastlingRookTo(move));
+        }
+        return changedSquares;
+    }
+
+    // for the side to move, computed once per position
+    void updateCheckersAndPinnedPieces(){
+        int us = BitboardPosition.colorIndex(whoseTurn);
+        int kingSquare = getKingSquare(us);
+
+        checkers = getAttackers(kingSquare, 1 - us, bitboards.occupied);
+        pinnedPieces = getPinnedPiecesBitboard(us, kingSquare);
+    }
+
+    long getCheckersBitboard(){
+        return checkers;
+    }
+
+    long getPinnedPiecesBitboard(){
+        return pinnedPieces;
+    }
+
+    // the captured pawn stands next to the capturing one, not on the destination square
+    static int getEnPassantCaptureSquare(int move){
+        return BitboardPosition.toSquare(BitboardPosition.xOf(MoveEncoding.getTo(move)), BitboardPosition.yOf(MoveEncoding.getFrom(move)));
+    }
+
+    static int getCastlingRookFrom(int move){
+        return MoveEncoding.isShortCastle(move) ? MoveEncoding.getTo(move) + 1 : MoveEncoding.getTo(move) - 2;
+    }
+
+    static int getCastlingRookTo(int move){
+        return MoveEncoding.isShortCastle(move) ? MoveEncoding.getTo(move) - 1 : MoveEncoding.getTo(move) + 1;
+    }
+
+    static int getCastleFlag(int move){
+        int color = BitboardPosition.colorOf(MoveEncoding.getPiece(move));
+        return MoveEncoding.isShortCastle(move) ? CastleRights.shortCastle(color) : CastleRights.longCastle(color);
+    }
+
+    // detect illegal moves that lead to uncertain states
+    static boolean isKingCapture(int move){
+        return MoveEncoding.isCapture(move) && BitboardPosition.typeOf(MoveEncoding.getCapturedPiece(move)) == BitboardPosition.KING;
+    }
+
+    boolean isDrawByInsufficientMaterial(){
+        final int white = BitboardPosition.WHITE;
+        final int black = BitboardPosition.BLACK;
+
+        // pawns or major pieces on the board
+        long pawnsAndMajorPieces = bitboards.pieces[BitboardPosition.PAWN] | bitboards.pieces[BitboardPosition.ROOK] | bitboards.pieces[BitboardPosition.QUEEN]
+                | bitboards.pieces[BitboardPosition.PAWN + 6] | bitboards.pieces[BitboardPosition.ROOK + 6] | bitboards.pieces[BitboardPosition.QUEEN + 6];
+        if(pawnsAndMajorPieces != 0){
+            return false;
+        }
+
+        int numberOfWhiteKnights = bitboards.count(white, BitboardPosition.KNIGHT);
+        int numberOfWhiteBishops = bitboards.count(white, BitboardPosition.BISHOP);
+        int numberOfBlackKnights = bitboards.count(black, BitboardPosition.KNIGHT);
+        int numberOfBlackBishops = bitboards.count(black, BitboardPosition.BISHOP);
+
         if(numberOfWhiteKnights > 1 || numberOfWhiteBishops > 1 || (numberOfWhiteKnights == 1 && numberOfWhiteBishops == 1)){
             return false;
         }
         // white has no pawns or major pieces and max. a single knight or a single bishop (but not both)
-        for(Piece piece : blackPieces){
-            if(piece instanceof Pawn || piece instanceof Rook || piece instanceof Queen){
-                return false;
-            }
-            else if(piece instanceof Bishop bishop){
-                singleBlackBishop = bishop;
-                numberOfBlackBishops++;
-            }
-            else if(piece instanceof Knight){
-                numberOfBlackKnights++;
-            }
-        }
         if(numberOfBlackKnights > 1 || numberOfBlackBishops > 1 || (numberOfBlackKnights == 1 && numberOfBlackBishops==1)){
             return false;
         }
@@ -415,7 +448,9 @@ public class Game {
         // white has king and max 1 bishop
         // opposite color bishops is only non draw now
         if(numberOfWhiteBishops == 1 && numberOfBlackBishops == 1){
-            return GameUtils.isWhite(singleWhiteBishop.getCurrentSquare()) == GameUtils.isWhite(singleBlackBishop.getCurrentSquare());
+            int whiteBishopSquare = Long.numberOfTrailingZeros(bitboards.getPieces(white, BitboardPosition.BISHOP));
+            int blackBishopSquare = Long.numberOfTrailingZeros(bitboards.getPieces(black, BitboardPosition.BISHOP));
+            return GameUtils.isWhite(whiteBishopSquare) == GameUtils.isWhite(blackBishopSquare);
         }
         return true;
     }
@@ -429,53 +464,97 @@ public class Game {
         }
     }
 
-    int getRepetitionsOfCurrentPosition(){
-        return repetitionsOfReachedPosition;
+    // number of leaves of the legal move tree (tests the move generator, draws by rule don't end the tree)
+    long perft(int depth){
+        return perft(depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
     }
 
-    private void removeCastleRightAfterRookCapture(Rook capturedRook){
-        King kingWhoLosesRight = capturedRook.color == PieceColor.White ? whiteKing : blackKing;
+    private long perft(int depth, int[][] moveBuffers){
+        if(depth == 0){
+            return 1;
+        }
+        int[] moves = moveBuffers[depth];
+        int numberOfMoves = MoveGenerator.generateLegalMoves(this, moves, 0);
 
-        // not isOnShortSide != isOnLongSide (otherwise we might take away long side castling rights by moving short side rook on back rank)
-        boolean onBackRank = capturedRook.color == PieceColor.White ? (capturedRook.getPosition()[1] == 7) : (capturedRook.getPosition()[1] == 0);
-        boolean isOnShortSide = capturedRook.getPosition()[0] == 7;
-        boolean isOnLongSide = capturedRook.getPosition()[0] == 0;
+        // bulk counting: the last moves don't have to be played
+        if(depth == 1){
+            return numberOfMoves;
+        }
+        long nodes = 0;
+        for(int i = 0; i < numberOfMoves; i++){
+            makeMove(moves[i]);
+            outcome = Outcome.Open;
+            nodes += perft(depth - 1, moveBuffers);
+            undoMove();
+        }
+        return nodes;
+    }
 
-        if(onBackRank) {
-            if (isOnShortSide) {
-                kingWhoLosesRight.canShortCastle = false;
-            } else if (isOnLongSide) {
-                kingWhoLosesRight.canLongCastle = false;
-            }
+    // perft per root move (to find the move where the counts start to differ)
+    Map<String, Long> divide(int depth){
+        assert depth >= 1 : "divide needs at least one move";
+
+        int[][] moveBuffers = new int[depth + 1][MoveGenerator.MAX_MOVES];
+        int[] moves = moveBuffers[depth];
+        int numberOfMoves = MoveGenerator.generateLegalMoves(this, moves, 0);
+
+        Map<String, Long> nodesPerMove = new TreeMap<>();
+        for(int i = 0; i < numberOfMoves; i++){
+            makeMove(moves[i]);
+            outcome = Outcome.Open;
+            nodesPerMove.put(MoveEncoding.toUCI(moves[i]), perft(depth - 1, moveBuffers));
+            undoMove();
+        }
+        return nodesPerMove;
+    }
+
+    // SAN of the moves played since the loaded position
+    // only built on request (opening book, GUI), make/undo never format notation
+    List<String> getHistory(){
+        List<String> history = new ArrayList<>(undoStack.size);
+        for(int i = 0; i < undoStack.size; i++){
+            history.add(MoveEncoding.toSAN(undoStack.moves[i]));
         }
+        return history;
     }
 
-    private void removeCastleRightAfterRookMove(Rook movedRook, int[] rookStartingPosition){
-        King kingWhoLosesRight = movedRook.color == PieceColor.White ? whiteKing : blackKing;
+    int getRepetitionsOfCurrentPosition(){
+        return repetitionsOfReachedPosition;
+    }
 
-        // not isOnShortSide != isOnLongSide (otherwise we might take away long side castling rights by moving short side rook on back rank)
-        boolean onBackRank = movedRook.color == PieceColor.White ? (rookStartingPosition[1] == 7) : (rookStartingPosition[1] == 0);
-        boolean isOnShortSide = rookStartingPosition[0] == 7;
-        boolean isOnLongSide = rookStartingPosition[0] == 0;
+    // how often the current position occurred so far (including now)
+    // only positions since the last capture or pawn move can come back, with the same side to move (every other ply)
+    private int countRepetitions(){
+        int repetitions = 1;
+        int oldestPly = Math.max(0, undoStack.size - numberOfMovesWithoutProgress);
 
-        if(onBackRank) {
-            if (isOnShortSide) {
-                kingWhoLosesRight.canShortCastle = false;
-            } else if (isOnLongSide) {
-                kingWhoLosesRight.canLongCastle = false;
+        // going back and forth takes at least four plies
+        for(int ply = undoStack.size - 4; ply >= oldestPly; ply -= 2){
+            if(undoStack.keys[ply] == key){
+                repetitions++;
             }
         }
+        return repetitions;
     }
 
-    Piece getPieceAt(int[] coords){
-        return GameUtils.insideBoard(coords) ? position[coords[1]][coords[0]] : null;
-    }
+    // in the search a position that already came up after the root counts as a draw (whoever could avoid it, would)
+    // positions from before the root still need the 3-fold repetition
+    boolean isDrawByRepetitionInSearch(int rootPly){
+        int repetitionsBeforeRoot = 0;
+        int oldestPly = Math.max(0, undoStack.size - numberOfMovesWithoutProgress);
 
-    boolean canLandOn(int[] coords, PieceColor moverColor){
-        return GameUtils.insideBoard(coords) && (getPieceAt(coords) == null || getPieceAt(coords).color != moverColor);
+        for(int ply = undoStack.size - 4; ply >= oldestPly; ply -= 2){
+            if(undoStack.keys[ply] == key){
+                if(ply >= rootPly || ++repetitionsBeforeRoot == 2){
+                    return true;
+                }
+            }
+        }
+        return false;
     }
-    boolean canCaptureSomethingAt(int[] coords, PieceColor moverColor){
-        return canLandOn(coords, moverColor) && getPieceAt(coords) != null;
+
+    int getKingSquare(int color){
+        return Long.numberOfTrailingZeros(bitboards.getPieces(color, BitboardPosition.KING));
     }
 
     public List<Move> getMovesOfSelectedPiece(Piece selectedPiece){
@@ -488,52 +567,42 @@ public class Game {
         return movesOfSelectedPiece;
     }
 
-    List<Move> getPseudoLegalCaptures(){
-        assert !isOver() : "too far";
-
-        List<Move> pseudoLegalCaptures = new ArrayList<>();
-        // if king is not in check, we can only walk into check or move a pinned piece
-        // if king is in check, we either walk away from it or capture or block (that's too complicated, check everything there)
-        for (int pieceIdx = 0; pieceIdx < getPiecesForTurn().size(); pieceIdx++) {
-            Piece pieceToBeMoved = getPiecesForTurn().get(pieceIdx);
-            pseudoLegalCaptures.addAll(pieceToBeMoved.getPossibleMoves().stream().filter(Move::isCapture).toList());
+    // Move objects for the GUI, PGN loading and the opening book (the view has to be up-to-date)
+    public List<Move> getLegalMoves(){
+        int[] legalMoves = generateLegalMoves();
+        List<Move> moves = new ArrayList<>(legalMoves.length);
+        for(int move : legalMoves){
+            moves.add(toMove(move));
         }
-        return pseudoLegalCaptures;
+        return moves;
     }
 
-    public List<Piece> getPiecesForTurn(){
-        return whoseTurn == PieceColor.White ? whitePieces : blackPieces;
+    Move toMove(int move){
+        int from = MoveEncoding.getFrom(move);
+        return new Move(move, position[BitboardPosition.yOf(from)][BitboardPosition.xOf(from)]);
     }
 
-    boolean isEnPassantPinned(Piece piece, List<Move> possiblePieceMoves){
-        return piece instanceof Pawn && possiblePieceMoves.stream().anyMatch(Move::isEnPassantCapture);
-    }
-
-    // tactical moves are captures, checks and check evasions
-    public List<Move> getLegalMoves(){
-
+    // writes the captures into the buffer starting at offset, returns how many there are
+    int generatePseudoLegalCaptures(int[] captures, int offset){
         assert !isOver() : "too far";
 
-        List<Move> legalMoves = new ArrayList<>();
-        PieceColor oppositeColor = whoseTurn.getOppositeColor();
-
-        King kingToBeProtected = whoseTurn == PieceColor.White ? whiteKing : blackKing;
-        King kingToBeAttacked = whoseTurn == PieceColor.White ? blackKing : whiteKing;
+        return MoveGenerator.generatePseudoLegalCaptures(this, captures, offset) - offset;
+    }
 
-        // consider a pawn of the right (defending) color with en passant possibility automatically as pinned
-        // to be pinned doesn't mean that it can't move, just more checks
-        Set<Piece> pinnedPieces = getPinnedPieces(whoseTurn, kingToBeProtected.x, kingToBeProtected.y);
+    // copy for callers outside the search
+    int[] generateLegalMoves(){
+        int count = generateLegalMoves(moveBuffer, 0);
+        return Arrays.copyOf(moveBuffer, count);
+    }
 
-        // important for caching and sliding pieces
-        int numberOfMovesPlayed = executedMoves.size();
-        Move lastMove = numberOfMovesPlayed > 0 ? executedMoves.get(numberOfMovesPlayed - 1) : null;
-        Move secondToLastMove = numberOfMovesPlayed > 1 ? executedMoves.get(numberOfMovesPlayed - 2) : null;
+    // writes the legal moves into the buffer starting at offset, returns how many there are
+    int generateLegalMoves(int[] legalMoves, int offset){
 
-        HashMap<Square, Square> squaresAttackedByOpponent = getAttackedSquares(oppositeColor, lastMove, secondToLastMove);
-        Set<CheckSquare> checkSquares = getCheckSquares(kingToBeAttacked);
+        assert !isOver() : "too far";
 
-        boolean isKingInCheck = squaresAttackedByOpponent.containsKey(new Square(kingToBeProtected.x, kingToBeProtected.y));
-        Set<Piece> checkers = getCheckers(squaresAttackedByOpponent, kingToBeProtected);
+        int us = BitboardPosition.colorIndex(whoseTurn);
+        int kingSquare = getKingSquare(us);
+        boolean isKingInCheck = getCheckersBitboard() != 0;
 
         if(whoseTurn == PieceColor.White){
             isWhiteKingInCheck = isKingInCheck;
@@ -542,64 +611,22 @@ public class Game {
             isBlackKingInCheck = isKingInCheck;
         }
 
-        // if king is not in check, we can only walk into check or move a pinned piece
-        // if king is in check, we either walk away from it or capture or block (that's too complicated, check everything there)
+        // checks are already marked by the generator
+        int count = MoveGenerator.generateLegalMoves(this, legalMoves, offset);
 
-        for(int pieceIdx = 0; pieceIdx < getPiecesForTurn().size(); pieceIdx++){
-
-            Piece pieceToBeMoved = getPiecesForTurn().get(pieceIdx);
-            List<Move> possiblePieceMoves = pieceToBeMoved.getPossibleMoves();
-
-            // if destination is a square were check can be given and the piece has the right type, mark as check
-            for(Move move : possiblePieceMoves){
-                if(checkSquares.contains(new CheckSquare(move.endingPosition, pieceToBeMoved))){
-                        move.markAsCheck();
-                }
+        int numberOfKingMoves = 0;
+        for(int i = offset; i < count; i++){
+            if(MoveEncoding.getFrom(legalMoves[i]) == kingSquare){
+                numberOfKingMoves++;
             }
+        }
 
-            // deal with king moves
-            if(pieceToBeMoved instanceof King king) {
-
-                king.setRecentNumberOfPossibleMoves(0);
-
-                for (Move candidateMove : possiblePieceMoves) {
-                    // king can't walk into check
-                    if (squaresAttackedByOpponent.containsKey(new Square(candidateMove.endingPosition))) {
-                        continue;
-                    }
-                    // king can't castle through check, out of check
-                    if (candidateMove.isCastle() && (isKingInCheck
-                                || (candidateMove.isShortCastle && squaresAttackedByOpponent.containsKey(new Square(kingToBeProtected.x + 1, kingToBeProtected.y)))
-                                || (candidateMove.isLongCastle && squaresAttackedByOpponent.containsKey(new Square(kingToBeProtected.x - 1, kingToBeProtected.y))))) {
-                            continue;
-                    }
-
-                    // passed both tests so valid
-                    legalMoves.add(candidateMove);
-                    king.incrementRecentNumberOfPossibleMoves();
-                }
-            }
-            else {
-                // no danger and not pinned
-                boolean isPinned = pinnedPieces.contains(pieceToBeMoved) || isEnPassantPinned(pieceToBeMoved, possiblePieceMoves);
+        int numberOfLegalMoves = count - offset;
+        recentNumberOfPossibleMoves[us] = numberOfLegalMoves;
+        recentNumberOfKingMoves[us] = numberOfKingMoves;
 
-                if (!isKingInCheck && !isPinned) {
-                    pieceToBeMoved.setRecentNumberOfPossibleMoves(possiblePieceMoves.size());
-                    legalMoves.addAll(possiblePieceMoves);
-                }
-                // pinned piece (also en passant pinned)
-                else if (isPinned) {
-                    bruteForceCheck(pieceToBeMoved, possiblePieceMoves, legalMoves);
-                }
-                // we are in check (only need to consider single check since in double check, king needs to move)
-                // and we already have all the king moves so no other piece moves get added
-                else if(checkers.size() == 1){
-                    bruteForceCheckAndPassCaptureOfChecker(pieceToBeMoved, possiblePieceMoves, legalMoves, checkers.stream().findFirst().get());
-                }
-            }
-        }
         // either checkmate or stalemate
-        if(legalMoves.isEmpty()){
+        if(numberOfLegalMoves == 0){
             // checkmate
             if(isKingInCheck){
                 outcome = (whoseTurn.getOppositeColor() == PieceColor.Black ? Outcome.BlackWon : Outcome.WhiteWon);
@@ -608,55 +635,25 @@ public class Game {
                 outcome = Outcome.Stalemate;
             }
         }
-        return legalMoves;
+        return numberOfLegalMoves;
     }
 
-    void bruteForceCheck(Piece pieceToBeMoved, List<Move> possiblePieceMoves, List<Move> legalMoves){
+    // squares on the lines of sliding checkers (except for the checker itself), the attack maps stop at the king
+    long getSquaresBehindKing(int kingSquare, long checkers){
+        long squaresBehindKing = 0L;
+        for(; checkers != 0; checkers &= checkers - 1){
+            int checkerSquare = Long.numberOfTrailingZeros(checkers);
+            int checkerType = BitboardPosition.typeOf(bitboards.getPieceOn(checkerSquare));
 
-        King kingToBeProtected = getKingToBeProtected();
-        PieceColor oppositeColor = kingToBeProtected.color.getOppositeColor();
-
-        // reset and increment for every legal move
-        pieceToBeMoved.setRecentNumberOfPossibleMoves(0);
-        for (Move candidateMove : possiblePieceMoves) {
-            executePossiblyIllegalMove(candidateMove);
-            if (!isSquareAttackedBy(oppositeColor, kingToBeProtected.x, kingToBeProtected.y)) {
-                legalMoves.add(candidateMove);
-                pieceToBeMoved.incrementRecentNumberOfPossibleMoves();
+            if(checkerType == BitboardPosition.BISHOP || checkerType == BitboardPosition.ROOK || checkerType == BitboardPosition.QUEEN){
+                squaresBehindKing |= Attacks.LINE[checkerSquare][kingSquare] & ~(1L << checkerSquare);
             }
-            undoLastMove();
         }
+        return squaresBehindKing;
     }
 
-    void bruteForceCheckAndPassCaptureOfChecker(Piece pieceToBeMoved, List<Move> possiblePieceMoves, List<Move> legalMoves, Piece checker){
-
-        King kingToBeProtected = getKingToBeProtected();
-        PieceColor oppositeColor = kingToBeProtected.color.getOppositeColor();
-
-        // reset and increment for every legal move
-        pieceToBeMoved.setRecentNumberOfPossibleMoves(0);
-        for (Move candidateMove : possiblePieceMoves) {
-
-            // don't check if we capture the checker (we resolve the check)
-            if(candidateMove.isCapture() && checker == candidateMove.getCapturedPiece()){
-                legalMoves.add(candidateMove);
-                pieceToBeMoved.incrementRecentNumberOfPossibleMoves();
-            }
-            // we didn't capture the checker
-            // TODO: did we block it?
-            else {
-                executePossiblyIllegalMove(candidateMove);
-                if (!isSquareAttackedBy(oppositeColor, kingToBeProtected.x, kingToBeProtected.y)) {
-                    legalMoves.add(candidateMove);
-                    pieceToBeMoved.incrementRecentNumberOfPossibleMoves();
-                }
-                undoLastMove();
-            }
-        }
-    }
-
-    // TODO: awkward solution, change this
-    public HashMap<Square, Square> getAttackedSquares(PieceColor color, Move lastMove, Move secondToLastMove){
+    // per square the pieces that attack it (only used to highlight squares in the GUI)
+    public HashMap<Square, Square> getAttackedSquares(PieceColor color){
 
         HashMap<Square, Square> attackedSquares = new HashMap<>();
         List<Piece> pieces = (color == PieceColor.White ? whitePieces : blackPieces);
@@ -664,9 +661,8 @@ public class Game {
         for(int pieceIdx = 0; pieceIdx < pieces.size(); pieceIdx++){
 
             Piece piece = pieces.get(pieceIdx);
-            boolean needsRecalculation = needsRecalculation(piece, lastMove, secondToLastMove);
 
-            for(Square square : piece.getAttackedSquares(needsRecalculation)){
+            for(Square square : piece.getAttackedSquares()){
                // merge
                if(attackedSquares.containsKey(square)){
                    Square alreadyAdded = attackedSquares.get(square);
@@ -681,51 +677,30 @@ public class Game {
         return attackedSquares;
     }
 
-    // if piece moved, we automatically recalculate (no matter piece type)
-    private boolean needsRecalculation(Piece piece, Move lastMove, Move secondToLastMove){
-        if(GameUtils.isLeapingPiece(piece)){
-            return false;
-        }
-        // TODO: fix bug (in move generator, we try out moves but when we only look at last executed, we might have moves
-        // TODO: that don't fit anymore
-        /*
-        boolean linesChanged = false;
-        boolean diagonalsChanged = false;
-
-        if(piece instanceof Rook || piece instanceof Queen){
-            boolean linesChangedLastMove = (lastMove != null && (onLines(piece, lastMove.startingPosition) || onLines(piece, lastMove.endingPosition)));
-            boolean linesChangedSecondToLastMove = (secondToLastMove != null && (onLines(piece, secondToLastMove.startingPosition) || onLines(piece, secondToLastMove.endingPosition)));
-            linesChanged = linesChangedLastMove || linesChangedSecondToLastMove;
-        }
-        if(piece instanceof Bishop || piece instanceof Queen){
-            boolean diagonalsChangedLastMove = (lastMove != null && (onDiagonals(piece, lastMove.startingPosition) || onDiagonals(piece, lastMove.endingPosition)));
-            boolean diagonalsChangedSecondToLastMove = (secondToLastMove != null && (onDiagonals(piece, secondToLastMove.startingPosition) || onDiagonals(piece, secondToLastMove.endingPosition)));
-            diagonalsChanged = diagonalsChangedLastMove || diagonalsChangedSecondToLastMove;
-        }
-
-        return linesChanged || diagonalsChanged;
-        */
-        return true;
-    }
-
-    private boolean onDiagonals(Piece piece, int[] position){
-        int pieceLinearPosition = (piece.y * 8) + piece.x;
-        int linearPosition = position[1] * 8 + position[0];
+    // all pieces of the given color that attack the square
+    long getAttackers(int square, int color, long occupied){
+        long bishopsAndQueens = bitboards.getPieces(color, BitboardPosition.BISHOP) | bitboards.getPieces(color, BitboardPosition.QUEEN);
+        long rooksAndQueens = bitboards.getPieces(color, BitboardPosition.ROOK) | bitboards.getPieces(color, BitboardPosition.QUEEN);
 
-        return ((linearPosition - pieceLinearPosition) % 9 == 0) || ((linearPosition - pieceLinearPosition) % 7 == 0);
+        // a pawn of the other color on this square attacks exactly the squares our pawns attack it from
+        return (Attacks.PAWN_ATTACKS[1 - color][square] & bitboards.getPieces(color, BitboardPosition.PAWN))
+                | (Attacks.KNIGHT_ATTACKS[square] & bitboards.getPieces(color, BitboardPosition.KNIGHT))
+                | (Attacks.KING_ATTACKS[square] & bitboards.getPieces(color, BitboardPosition.KING))
+                | (Attacks.bishopAttacks(square, occupied) & bishopsAndQueens)
+                | (Attacks.rookAttacks(square, occupied) & rooksAndQueens);
     }
 
-    private boolean onLines(Piece piece, int[] position){
-        return (piece.x == position[0] || piece.y == position[1]);
+    public Set<Piece> getCheckers(){
+        return getPiecesOn(getCheckersBitboard());
     }
 
-    public Set<Piece> getCheckers(HashMap<Square, Square> squaresAttackedByOpponent, King kingToBeProtected){
-
-        Square attackedKingSquare = squaresAttackedByOpponent.getOrDefault(new Square(kingToBeProtected.x, kingToBeProtected.y), null);
-        if(attackedKingSquare != null){
-            return attackedKingSquare.attackedBy;
+    Set<Piece> getPiecesOn(long squares){
+        Set<Piece> pieces = new HashSet<>();
+        for(; squares != 0; squares &= squares - 1){
+            int square = Long.numberOfTrailingZeros(squares);
+            pieces.add(position[BitboardPosition.yOf(square)][BitboardPosition.xOf(square)]);
         }
-        return new HashSet<>();
+        return pieces;
     }
 
     public Outcome getOutcome(){
@@ -733,95 +708,75 @@ public class Game {
     }
 
     public String toString(){
-        StringBuilder res = new StringBuilder();
-        for(int y = 0; y < 8; y++){
-            for(int x = 0; x < 8; x++){
-                if(position[y][x] != null){
-                    res.append(position[y][x].toString());
-                }
-                else{
-                    res.append("..");
-                }
-                res.append(" ");
-            }
-            res.append("\n");
-        }
-        res.append(whoseTurn.name());
-        return res.toString();
+        return GameUtils.boardToString(this) + whoseTurn.name();
     }
 
     void changeTurns(){
         whoseTurn = whoseTurn == PieceColor.White ? PieceColor.Black : PieceColor.White;
     }
 
+    // the pieces are already hashed incrementally, only side to move, castling and en passant are added
+    void updateKey(){
+        key = bitboards.key ^ Zobrist.CASTLING[castleRights];
+        if(whoseTurn == PieceColor.Black){
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        // positions only differ by en passant if the capture is possible
+        int us = BitboardPosition.colorIndex(whoseTurn);
+        if(enPassantSquare != NO_SQUARE
+                && (Attacks.PAWN_ATTACKS[1 - us][enPassantSquare] & bitboards.getPieces(us, BitboardPosition.PAWN)) != 0){
+            key ^= Zobrist.EN_PASSANT_FILE[BitboardPosition.xOf(enPassantSquare)];
+        }
+    }
+
+    long getKey(){
+        return key;
+    }
+
+    long getPawnKey(){
+        return bitboards.pawnKey;
+    }
+
+    long getMaterialKey(){
+        return bitboards.materialKey;
+    }
+
     boolean isOver(){
         // kings can be captured as of now
         return outcome != Outcome.Open;
     }
 
     boolean inCheck(){
-        return (whoseTurn == PieceColor.White && isWhiteKingInCheck) ||
-                (whoseTurn == PieceColor.Black && isBlackKingInCheck);
+        return getCheckersBitboard() != 0;
     }
 
-    boolean isSquareAttackedBy(PieceColor color, int x, int y){
-        // check all diagonals
-        List<BiFunction<int[], Integer, int[]>> diagonals = List.of(GameUtils.getULDiagonal, GameUtils.getURDiagonal, GameUtils.getLLDiagonal, GameUtils.getLRDiagonal);
-        for(BiFunction<int[], Integer, int[]> getLocation : diagonals){
-            Piece firstPieceOnPath = getFirstPieceOnPath(x, y, getLocation);
-            if(firstPieceOnPath != null && firstPieceOnPath.color == color && canDiagonallyCapture(firstPieceOnPath, x, y)){
-                return true;
-            }
-        }
-        // check all lines
-        List<BiFunction<int[], Integer, int[]>> lines = List.of(GameUtils.getLeft, GameUtils.getRight, GameUtils.getUp, GameUtils.getDown);
-        for(BiFunction<int[], Integer, int[]> getLocation : lines){
-            Piece firstPieceOnPath = getFirstPieceOnPath(x, y, getLocation);
-            if(firstPieceOnPath != null && firstPieceOnPath.color == color && canCaptureStraight(firstPieceOnPath, x, y)){
-                return true;
-            }
-        }
-        // check knight moves
-        for(int i = 0; i < 8; i++){
-            int[] location = GameUtils.getKnightMoves.apply(new int[]{x, y}, i);
-            Piece pieceAtLocation = getPieceAt(location);
-
-            if(pieceAtLocation != null && pieceAtLocation.color == color && pieceAtLocation instanceof Knight){
-                return true;
-            }
-        }
-        return false;
+    boolean isSquareAttackedBy(PieceColor color, int square){
+        return attackMaps.isAttackedBy(BitboardPosition.colorIndex(color), square);
     }
 
     // you cannot have a defender that blocks a knight move
-    Set<Piece> getPinnedPieces(PieceColor color, int x, int y){
-
-        Set<Piece> pinnedPieces = new HashSet<>();
-
-        List<BiFunction<int[], Integer, int[]>> diagonals =
-                List.of(GameUtils.getULDiagonal, GameUtils.getURDiagonal, GameUtils.getLLDiagonal,
-                        GameUtils.getLRDiagonal);
-        List<BiFunction<int[], Integer, int[]>> lines =
-                List.of(GameUtils.getUp, GameUtils.getRight, GameUtils.getDown, GameUtils.getLeft);
-
-        for(BiFunction<int[], Integer, int[]> getLocation : diagonals){
-            Piece pinnedPiece = getPinnedPieceOnPath(color, x, y, getLocation, "diagonal");
-            if(pinnedPiece != null){
-                pinnedPieces.add(pinnedPiece);
-            }
-        }
-        for(BiFunction<int[], Integer, int[]> getLocation : lines){
-            Piece pinnedPiece = getPinnedPieceOnPath(color, x, y, getLocation, "straight");
-            if(pinnedPiece != null){
-                pinnedPieces.add(pinnedPiece);
+    // a piece is pinned when it's the only piece between its king and an enemy slider looking at the king
+    long getPinnedPiecesBitboard(int color, int kingSquare){
+        int them = 1 - color;
+        long bishopsAndQueens = bitboards.getPieces(them, BitboardPosition.BISHOP) | bitboards.getPieces(them, BitboardPosition.QUEEN);
+        long rooksAndQueens = bitboards.getPieces(them, BitboardPosition.ROOK) | bitboards.getPieces(them, BitboardPosition.QUEEN);
+
+        // sliders that would attack the king on an empty board
+        long snipers = (Attacks.bishopAttacks(kingSquare, 0L) & bishopsAndQueens)
+                | (Attacks.rookAttacks(kingSquare, 0L) & rooksAndQueens);
+
+        long pinnedPieces = 0L;
+        for(; snipers != 0; snipers &= snipers - 1){
+            long blockers = Attacks.BETWEEN[kingSquare][Long.numberOfTrailingZeros(snipers)] & bitboards.occupied;
+            if(Long.bitCount(blockers) == 1 && (blockers & bitboards.occupancy[color]) != 0){
+                pinnedPieces |= blockers;
             }
         }
         return pinnedPieces;
     }
 
     Set<Piece> getPinnedPieces(){
-        King kingToBeProtected = whoseTurn == PieceColor.White ? whiteKing : blackKing;
-        return getPinnedPieces(whoseTurn, kingToBeProtected.x, kingToBeProtected.y);
+        return getPiecesOn(getPinnedPiecesBitboard());
     }
 
     public King getKingToBeAttacked(){
@@ -832,138 +787,45 @@ public class Game {
         return whoseTurn == PieceColor.White ? whiteKing : blackKing;
     }
 
-    public Piece getPinnedPieceOnPath(PieceColor defendingColor, int x, int y, BiFunction<int[], Integer, int[]> getLocation, String movement){
-
-        Piece firstPiece = null;
-        // no path on a chess board is longer than 8 squares
-        for(int i = 1;i < 8;i++){
-            int[] location = getLocation.apply(new int[]{x, y}, i);
-
-            if(!GameUtils.insideBoard(location)){
-                return null;
-            }
-            Piece pieceAtLocation = getPieceAt(location);
-
-            // we have a pinned piece and a piece that's blocked behind it
-            if(firstPiece != null && pieceAtLocation != null){
-                // is it an enemy piece of the right type?
-                if(pieceAtLocation.color == defendingColor.getOppositeColor()){
-                    return pieceAtLocation instanceof Queen || (movement.equals("straight") && pieceAtLocation instanceof Rook)
-                            || (movement.equals("diagonal") && pieceAtLocation instanceof Bishop) ? firstPiece : null;
-                }
-                else{
-                    return null;
-                }
-
-            }
-            else if(pieceAtLocation != null && pieceAtLocation.color == defendingColor){
-                firstPiece = pieceAtLocation;
-            }
-        }
-        return null;
+    // squares from which a piece of the given type attacks the king
+    // check is given by going to an empty square on the kings path or by capturing a piece that protects him
+    long getCheckSquaresBitboard(int type, int kingSquare, int attackerColor){
+        long notOwnPieces = ~bitboards.occupancy[attackerColor];
+        return switch(type){
+            // the squares a pawn of the king's color on the king's square would attack
+            case BitboardPosition.PAWN -> Attacks.PAWN_ATTACKS[1 - attackerColor][kingSquare] & notOwnPieces;
+            case BitboardPosition.KNIGHT -> Attacks.KNIGHT_ATTACKS[kingSquare] & notOwnPieces;
+            case BitboardPosition.BISHOP -> Attacks.bishopAttacks(kingSquare, bitboards.occupied) & notOwnPieces;
+            case BitboardPosition.ROOK -> Attacks.rookAttacks(kingSquare, bitboards.occupied) & notOwnPieces;
+            case BitboardPosition.QUEEN -> Attacks.queenAttacks(kingSquare, bitboards.occupied) & notOwnPieces;
+            // a king can never give check
+            default -> 0L;
+        };
     }
 
     Set<CheckSquare> getCheckSquares(King kingToBeAttacked){
         Set<CheckSquare> squares = new HashSet<>();
-        // diagonals so bishop moves
-        List<BiFunction<int[], Integer, int[]>> diagonals =
-                List.of(GameUtils.getULDiagonal, GameUtils.getURDiagonal, GameUtils.getLLDiagonal, GameUtils.getLRDiagonal);
-
-        for(BiFunction<int[], Integer, int[]> getLocation : diagonals){
-            addCheckSquaresOnPath(squares, kingToBeAttacked, getLocation, "diagonal");
-        }
-        // vertical/horizontal moves
-        List<BiFunction<int[], Integer, int[]>> lines = List.of(GameUtils.getLeft, GameUtils.getRight, GameUtils.getUp, GameUtils.getDown);
-        for(BiFunction<int[], Integer, int[]> getLocation : lines){
-            addCheckSquaresOnPath(squares, kingToBeAttacked, getLocation, "straight");
-        }
-        // knight moves
-        addCheckSquaresOnPath(squares, kingToBeAttacked, GameUtils.getKnightMoves, "knight");
-        return squares;
-    }
-
-    boolean canDiagonallyCapture(Piece piece, int x, int y){
-        if(piece instanceof Pawn){
-            boolean pawnNextToKing = Math.abs(piece.x - x) == 1;
-            boolean kingInFrontOfPawn = piece.color == PieceColor.White ? y < piece.y : y > piece.y;
-            return pawnNextToKing && kingInFrontOfPawn;
-        }
-        else if(piece instanceof  King) {
 
-            boolean kingCloseEnoughX = Math.abs(x - piece.x) <=1;
-            boolean kingCloseEnoughY = Math.abs(y - piece.y) <= 1;
+        int kingSquare = kingToBeAttacked.getSquare();
+        int attackerColor = BitboardPosition.colorIndex(kingToBeAttacked.color.getOppositeColor());
 
-            return kingCloseEnoughX && kingCloseEnoughY;
-        }else{
-            return piece instanceof Bishop || piece instanceof Queen;
-        }
-    }
-    boolean canCaptureStraight(Piece piece, int x, int y){
-        boolean kingCloseEnoughX = Math.abs(x - piece.x) <=1;
-        boolean kingCloseEnoughY = Math.abs(y - piece.y) <= 1;
-
-        return piece instanceof Rook || piece instanceof Queen || (piece instanceof King && kingCloseEnoughX && kingCloseEnoughY);
-    }
+        long rookSquares = getCheckSquaresBitboard(BitboardPosition.ROOK, kingSquare, attackerColor);
+        long bishopSquares = getCheckSquaresBitboard(BitboardPosition.BISHOP, kingSquare, attackerColor);
+        long knightSquares = getCheckSquaresBitboard(BitboardPosition.KNIGHT, kingSquare, attackerColor);
+        long pawnSquares = getCheckSquaresBitboard(BitboardPosition.PAWN, kingSquare, attackerColor);
 
-    public Piece getFirstPieceOnPath(int x, int y, BiFunction<int[], Integer, int[]> getLocation){
-        // no path on a chess board is longer than 8 squares
-        for(int i = 1;i < 8;i++){
-            int[] location = getLocation.apply(new int[]{x, y}, i);
+        for(long all = rookSquares | bishopSquares | knightSquares; all != 0; all &= all - 1){
+            int square = Long.numberOfTrailingZeros(all);
+            long bit = 1L << square;
 
-            if(!GameUtils.insideBoard(location)){
-                return null;
-            }
-            Piece pieceAtLocation = getPieceAt(location);
-            if(pieceAtLocation != null){
-                return pieceAtLocation;
-            }
-        }
-        return null;
-    }
-    public void addCheckSquaresOnPath(Set<CheckSquare> checkSquares, King kingToBeAttacked, BiFunction<int[], Integer, int[]> getLocation, String movement){
-
-        // no path on a chess board is longer than 8 squares
-        for(int i = 1;i <= 8;i++){
-            int[] location = getLocation.apply(new int[]{kingToBeAttacked.x, kingToBeAttacked.y}, i);
-
-            // sliding pieces are stopped by edge of the board, knights only skip
-            if(!GameUtils.insideBoard(location)){
-                if(movement.equals("knight")){
-                    continue;
-                }
-                else{
-                    break;
-                }
-            }
-
-            Piece pieceAtLocation = getPieceAt(location);
-
-            boolean canGiveCheckOnEmptySquare = pieceAtLocation == null;
-            boolean canGiveCheckByCapturing =  pieceAtLocation != null && pieceAtLocation.color == kingToBeAttacked.color;
-            // check given by going to empty square on kings path or capturing piece that protects him
-            if(canGiveCheckOnEmptySquare || canGiveCheckByCapturing){
-                CheckSquare checkSquare = new CheckSquare(location[0], location[1]);
-
-                switch (movement) {
-                    case "straight" -> checkSquare.checkByRook = true;
-                    case "knight" -> checkSquare.checkByKnight = true;
-                    case "diagonal" -> {
-                        checkSquare.checkByBishop = true;
-                        boolean towardsKing = (kingToBeAttacked.color == PieceColor.White && location[1] < kingToBeAttacked.y)
-                                || (kingToBeAttacked.color == PieceColor.Black && location[1] > kingToBeAttacked.y);
-                        boolean pawnCanCapture = towardsKing && i == 1;
-                        if (pawnCanCapture) {
-                            checkSquare.checkByPawn = true;
-                        }
-                    }
-                }
-
-                checkSquares.add(checkSquare);
-            }
-            if(!canGiveCheckOnEmptySquare && !movement.equals("knight")){
-                break;
-            }
+            CheckSquare checkSquare = new CheckSquare(BitboardPosition.xOf(square), BitboardPosition.yOf(square));
+            checkSquare.checkByRook = (rookSquares & bit) != 0;
+            checkSquare.checkByBishop = (bishopSquares & bit) != 0;
+            checkSquare.checkByKnight = (knightSquares & bit) != 0;
+            checkSquare.checkByPawn = (pawnSquares & bit) != 0;
+            squares.add(checkSquare);
         }
+        return squares;
     }
 
     // TODO: extend this
@@ -1091,15 +953,12 @@ public class Game {
 
     // for transposition tables
     public int hashCode(){
-        return toString().hashCode();
+        return Long.hashCode(key);
     }
 
-    // TODO: extend this
     @Override
     public boolean equals(Object other){
-        return other instanceof Game
-                && hashCode() == other.hashCode()
-                && whoseTurn == ((Game) other).whoseTurn;
+        return other instanceof Game && key == ((Game) other).key;
     }
 
     public void loadFromFEN(String fenString){
@@ -1108,28 +967,39 @@ public class Game {
 
         // piece placement
         String placementString = parts[0];
-        this.position = positionFromFEN(placementString);
+        this.bitboards = positionFromFEN(placementString);
+        this.attackMaps = new AttackMaps(bitboards);
 
         // whose turn
         whoseTurn = whoseTurnFromFEN(parts[1]);
 
         // castling rights
-        setCastlingRightsFromFEN(parts[2]);
-        
-        //TODO: en passant target square
+        castleRights = castlingRightsFromFEN(parts[2]);
+        castlesDone = 0;
+
+        // en passant target square
+        enPassantSquare = enPassantSquareFromFEN(parts[3]);
 
         // half move clock
         numberOfMovesWithoutProgress = Integer.parseInt(parts[4]);
 
         // full move count irrelevant
-    }
 
-    private Piece[][] positionFromFEN(String placementString){
+        // the loaded position is the new starting point
+        undoStack.clear();
+        boardHistory.clear();
+        repetitionsOfReachedPosition = 1;
+        outcome = Outcome.Open;
+        isWhiteKingInCheck = isBlackKingInCheck = false;
+        updateKey();
+        updateCheckersAndPinnedPieces();
 
-        Piece[][] loadedPosition = new Piece[8][8];
+        updatePieceView();
+    }
 
-        whitePieces = new ArrayList<>();
-        blackPieces = new ArrayList<>();
+    private BitboardPosition positionFromFEN(String placementString){
+
+        BitboardPosition loadedPosition = new BitboardPosition();
 
         String[] rows = placementString.split("/");
         assert rows.length == 8 : "8 rows must be described";
@@ -1143,24 +1013,7 @@ public class Game {
                     x += toSkip;
                 }
                 else{
-                    Piece piece = fromFENChar(c, x, y);
-
-                    if(piece.color == PieceColor.White){
-                        whitePieces.add(piece);
-                    }
-                    else{
-                        blackPieces.add(piece);
-                    }
-
-                    // set kings (necessary for castling rights)
-                    if(piece instanceof King king){
-                        if(piece.color == PieceColor.White){
-                            whiteKing = king;
-                        }else{
-                            blackKing = king;
-                        }
-                    }
-                    loadedPosition[y][x] = piece;
+                    loadedPosition.addPiece(fromFENChar(c), BitboardPosition.toSquare(x, y));
                     x++;
                 }
             }
@@ -1176,11 +1029,9 @@ public class Game {
         };
     }
 
-    // assume variables whiteKing and blackKing are set correctly
-    private void setCastlingRightsFromFEN(String castlingFENString){
+    private int castlingRightsFromFEN(String castlingFENString){
         // castle rights have to be gained explicitly
-        whiteKing.canShortCastle = whiteKing.canLongCastle = false;
-        blackKing.canShortCastle = blackKing.canLongCastle = false;
+        int rights = 0;
 
         for(char c : castlingFENString.toCharArray()){
             // both lost castling right
@@ -1188,34 +1039,37 @@ public class Game {
                 break;
             }
             switch(c){
-                case 'K' -> whiteKing.canShortCastle = true;
-                case 'Q' -> whiteKing.canLongCastle = true;
-                case 'k' -> blackKing.canShortCastle = true;
-                case 'q' -> blackKing.canLongCastle = true;
+                case 'K' -> rights |= CastleRights.WHITE_SHORT;
+                case 'Q' -> rights |= CastleRights.WHITE_LONG;
+                case 'k' -> rights |= CastleRights.BLACK_SHORT;
+                case 'q' -> rights |= CastleRights.BLACK_LONG;
             }
         }
+        return rights;
     }
 
-    public Move getLastMove(){
-        return executedMoves.size() > 0 ? executedMoves.peek() : null;
-    }
-
-    public Move getSecondToLastMove(){
-        return executedMoves.size() > 1 ? executedMoves.get(executedMoves.size() - 2) : null;
+    private int enPassantSquareFromFEN(String enPassantFENString){
+        if(enPassantFENString.equals("-")){
+            return NO_SQUARE;
+        }
+        int x = enPassantFENString.charAt(0) - 'a';
+        int y = 7 - (enPassantFENString.charAt(1) - '1');
+        return BitboardPosition.toSquare(x, y);
     }
 
-    private Piece fromFENChar(char c, int x, int y){
-        PieceColor color = Character.isUpperCase(c) ? PieceColor.White : PieceColor.Black;
+    private int fromFENChar(char c){
+        int color = Character.isUpperCase(c) ? BitboardPosition.WHITE : BitboardPosition.BLACK;
         c = Character.toUpperCase(c);
 
-        return switch(c){
-            case 'K' -> new King(color, x, y, this);
-            case 'Q' -> new Queen(color, x, y, this);
-            case 'B' -> new Bishop(color, x, y, this);
-            case 'N' -> new Knight(color, x, y, this);
-            case 'R' -> new Rook(color, x, y, this);
-            case 'P' -> new Pawn(color, x, y, this);
+        int type = switch(c){
+            case 'K' -> BitboardPosition.KING;
+            case 'Q' -> BitboardPosition.QUEEN;
+            case 'B' -> BitboardPosition.BISHOP;
+            case 'N' -> BitboardPosition.KNIGHT;
+            case 'R' -> BitboardPosition.ROOK;
+            case 'P' -> BitboardPosition.PAWN;
             default -> throw new RuntimeException("Could not parse the piece");
         };
+        return BitboardPosition.getPieceIndex(color, type);
     }
 }
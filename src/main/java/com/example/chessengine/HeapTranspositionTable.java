@@ -0,0 +1,29 @@
+package com.example.chessengine;
+
+import java.util.Arrays;
+
+// transposition table in a plain long[] (java arrays are limited to 2^31 elements)
+public class HeapTranspositionTable extends TranspositionTable {
+
+    private final long[] entries;
+
+    public HeapTranspositionTable(int sizeInMB){
+        super(sizeInMB, 1L << 28);
+        entries = new long[(int) getNumberOfBuckets() * LONGS_PER_BUCKET];
+    }
+
+    @Override
+    long read(long bucket, int offset){
+        return entries[(int) bucket * LONGS_PER_BUCKET + offset];
+    }
+
+    @Override
+    void write(long bucket, int offset, long value){
+        entries[(int) bucket * LONGS_PER_BUCKET + offset] = value;
+    }
+
+    @Override
+    void clear(){
+        Arrays.fill(entries, 0L);
+    }
+}
@@ -46,7 +46,9 @@ public class MainApplication extends Application {
     double runtimeInSeconds = 0.0;
     int searchDepthReached = 0;
     int cutoffReached = 0;
-    double bestValue = 0.0;
+    int bestValue = 0;
+    String aspirationResearches = "";
+    String nullMoveCutoffs = "";
 
     Minimax minimax = null;
 
@@ -101,6 +103,9 @@ public class MainApplication extends Application {
 
     OpeningBook openingBook;
 
+    // kept between engine moves
+    TranspositionTable transpositionTable;
+
     @Override
     public void start(Stage stage) {
 
@@ -111,6 +116,7 @@ public class MainApplication extends Application {
 
         // ideal for 15|10 rapid chess
         engineSettings = new EngineSettings();
+        transpositionTable = TranspositionTable.create(engineSettings);
         openingBook = new OpeningBook();
 
         game = new Game();
@@ -151,13 +157,13 @@ public class MainApplication extends Application {
                 else {
                     if(humanVsComputer) {
                         if (!isHumansTurn() && screenDrawnSinceMove && minimax == null) {
-                            minimax = new Minimax(engineSettings, game, openingBook, updateStatistics, featureBasedEvaluationMethod);
+                            minimax = new Minimax(engineSettings, game, openingBook, transpositionTable, updateStatistics, featureBasedEvaluationMethod);
                             minimax.start();
                         }
                         // done
                         if (!isHumansTurn() && minimax != null && minimax.isFinished) {
-                            if (minimax.bestMoveAcrossDepths != null) {
-                                executeOnBoard(minimax.bestMoveAcrossDepths);
+                            if (minimax.engineMove != null) {
+                                executeOnBoard(minimax.engineMove);
                             } else {
                                 engineResigned = false;
                             }
@@ -213,6 +219,8 @@ public class MainApplication extends Application {
                     File file = fileChooser.showOpenDialog(stage);
                     if(file != null){
                         game.loadFromPGN(file);
+                        // entries of another game are of no use
+                        transpositionTable.clear();
                         refreshScene();
                     }
 
@@ -253,6 +261,8 @@ public class MainApplication extends Application {
 
                         // load into chess board here
                         game.loadFromFEN(fenString);
+                        // entries of another game are of no use
+                        transpositionTable.clear();
                         dialog.close();
                     });
 
@@ -372,20 +382,47 @@ public class MainApplication extends Application {
                         secondsTextField.setText(newValue.replaceAll("[^\\d]", ""));
                     });
 
+                    CheckBox principalVariationSearchBox = new CheckBox("Principal variation search");
+                    CheckBox nullMovePruningBox = new CheckBox("Null move pruning");
+                    CheckBox nullMoveVerificationBox = new CheckBox("Verify null move cutoffs");
+                    CheckBox lateMoveReductionsBox = new CheckBox("Late move reductions");
                     CheckBox moveSortingBox = new CheckBox("Move sorting");
+                    CheckBox staticExchangeEvaluationBox = new CheckBox("Static exchange evaluation");
                     CheckBox quiescenceBox = new CheckBox("Quiescence search");
-                    CheckBox pvTableBox = new CheckBox("PV tables");
+                    CheckBox transpositionTableBox = new CheckBox("Transposition table");
+                    CheckBox offHeapTranspositionTableBox = new CheckBox("Off-heap transposition table");
+                    CheckBox aspirationWindowsBox = new CheckBox("Aspiration windows");
+                    CheckBox deterministicRootSplitBox = new CheckBox("Deterministic root split");
                     CheckBox openingBookBox = new CheckBox("Opening book");
 
                     NumberField randomSeedField = new NumberField("Seed:", openingBook.randomSeed);
                     NumberField numberMovesOpeningField = new NumberField("Max moves from opening book:",
                             openingBook.maxNumberOfMovesFromBook);
-
+                    NumberField numberOfThreadsField = new NumberField("Threads:", engineSettings.numberOfThreads);
+                    NumberField transpositionTableSizeField = new NumberField("Transposition table size (MB):",
+                            engineSettings.transpositionTableSizeInMB);
+                    NumberField aspirationWindowField = new NumberField("Aspiration window (centipawns):",
+                            engineSettings.aspirationWindowInCentipawns);
+                    NumberField transpositionTableAlignmentField = new NumberField("Off-heap alignment (KB):",
+                            engineSettings.transpositionTableAlignmentInKB);
+
+                    principalVariationSearchBox.setSelected(engineSettings.principalVariationSearchEnabled);
+                    nullMovePruningBox.setSelected(engineSettings.nullMovePruningEnabled);
+                    nullMoveVerificationBox.setSelected(engineSettings.nullMoveVerificationEnabled);
+                    lateMoveReductionsBox.setSelected(engineSettings.lateMoveReductionsEnabled);
                     moveSortingBox.setSelected(engineSettings.moveSortingEnabled);
+                    staticExchangeEvaluationBox.setSelected(engineSettings.staticExchangeEvaluationEnabled);
                     quiescenceBox.setSelected(engineSettings.quiescenceSearchEnabled);
-                    pvTableBox.setSelected(engineSettings.pvTablesEnabled);
+                    transpositionTableBox.setSelected(engineSettings.transpositionTableEnabled);
+                    offHeapTranspositionTableBox.setSelected(engineSettings.offHeapTranspositionTableEnabled);
+                    aspirationWindowsBox.setSelected(engineSettings.aspirationWindowsEnabled);
+                    deterministicRootSplitBox.setSelected(engineSettings.deterministicRootSplitEnabled);
                     openingBookBox.setSelected(engineSettings.openingBookEnabled);
 
+                    ComboBox<ParallelSearchMethod> parallelSearchBox = new ComboBox<>();
+                    parallelSearchBox.getItems().addAll(ParallelSearchMethod.values());
+                    parallelSearchBox.setValue(engineSettings.parallelSearchMethod);
+
                     HBox secondsBox = new HBox(20);
                     secondsBox.getChildren().addAll(secondsText, secondsTextField);
                     secondsBox.setAlignment(Pos.CENTER);
@@ -393,11 +430,43 @@ public class MainApplication extends Application {
                     Button applyButton = new Button("Apply");
 
                     applyButton.setOnAction(e -> {
+                        // a new size or memory kind means a new (empty) table
+                        // created first: if there's no memory for it, nothing is applied and the old table is kept
+                        boolean offHeap = offHeapTranspositionTableBox.isSelected();
+                        int sizeInMB = Math.min(offHeap ? 65536 : 4096, Math.max(1, transpositionTableSizeField.getValue()));
+                        int alignmentInKB = Math.max(1, transpositionTableAlignmentField.getValue());
+                        boolean tableChanged = sizeInMB != engineSettings.transpositionTableSizeInMB
+                                || offHeap != engineSettings.offHeapTranspositionTableEnabled
+                                || (offHeap && alignmentInKB != engineSettings.transpositionTableAlignmentInKB);
+
+                        if(tableChanged){
+                            try {
+                                transpositionTable = TranspositionTable.create(offHeap, sizeInMB, alignmentInKB);
+                            } catch (OutOfMemoryError error) {
+                                new Alert(Alert.AlertType.ERROR, "Not enough memory for a " + sizeInMB + " MB transposition table"
+                                        + (offHeap ? " (direct memory is limited by -XX:MaxDirectMemorySize)." : ".")).showAndWait();
+                                return;
+                            }
+                        }
+                        engineSettings.transpositionTableSizeInMB = sizeInMB;
+                        engineSettings.offHeapTranspositionTableEnabled = offHeap;
+                        engineSettings.transpositionTableAlignmentInKB = alignmentInKB;
+
                         engineSettings.maxSecondsToRespond = Math.min(3600, Math.max(5, Integer.parseInt(secondsTextField.getText())));
+                        engineSettings.principalVariationSearchEnabled = principalVariationSearchBox.isSelected();
+                        engineSettings.nullMovePruningEnabled = nullMovePruningBox.isSelected();
+                        engineSettings.nullMoveVerificationEnabled = nullMoveVerificationBox.isSelected();
+                        engineSettings.lateMoveReductionsEnabled = lateMoveReductionsBox.isSelected();
                         engineSettings.moveSortingEnabled = moveSortingBox.isSelected();
+                        engineSettings.staticExchangeEvaluationEnabled = staticExchangeEvaluationBox.isSelected();
                         engineSettings.quiescenceSearchEnabled = quiescenceBox.isSelected();
-                        engineSettings.pvTablesEnabled = pvTableBox.isSelected();
+                        engineSettings.transpositionTableEnabled = transpositionTableBox.isSelected();
                         engineSettings.openingBookEnabled = openingBookBox.isSelected();
+                        engineSettings.aspirationWindowsEnabled = aspirationWindowsBox.isSelected();
+                        engineSettings.aspirationWindowInCentipawns = Math.min(10000, Math.max(1, aspirationWindowField.getValue()));
+                        engineSettings.numberOfThreads = Math.min(256, Math.max(1, numberOfThreadsField.getValue()));
+                        engineSettings.parallelSearchMethod = parallelSearchBox.getValue();
+                        engineSettings.deterministicRootSplitEnabled = deterministicRootSplitBox.isSelected();
 
                         openingBook.randomSeed = randomSeedField.getValue();
                         openingBook.maxNumberOfMovesFromBook = Math.max(1, numberMovesOpeningField.getValue());
@@ -405,10 +474,12 @@ public class MainApplication extends Application {
                         dialog.close();
                     });
 
-                    dialogVbox.getChildren().addAll(secondsBox, moveSortingBox, quiescenceBox, pvTableBox,
-                            openingBookBox, randomSeedField.getGUI(), numberMovesOpeningField.getGUI(), applyButton);
+                    dialogVbox.getChildren().addAll(secondsBox, numberOfThreadsField.getGUI(), parallelSearchBox, deterministicRootSplitBox,
+                            principalVariationSearchBox, nullMovePruningBox, nullMoveVerificationBox, lateMoveReductionsBox, moveSortingBox, staticExchangeEvaluationBox, quiescenceBox,
+                            transpositionTableBox, transpositionTableSizeField.getGUI(), offHeapTranspositionTableBox, transpositionTableAlignmentField.getGUI(),
+                            aspirationWindowsBox, aspirationWindowField.getGUI(), openingBookBox, randomSeedField.getGUI(), numberMovesOpeningField.getGUI(), applyButton);
 
-                    Scene dialogScene = new Scene(dialogVbox, 600, 400);
+                    Scene dialogScene = new Scene(dialogVbox, 600, 800);
                     dialog.setScene(dialogScene);
                     dialog.show();
                 }
@@ -424,12 +495,14 @@ public class MainApplication extends Application {
         searchDepthReached = minimax.searchDepthReached;
         quiescenceDepthReached = minimax.quiescenceDepthReached;
 
-        totalNumberPositionsEvaluated = minimax.totalNumberPositionsEvaluated;
+        totalNumberPositionsEvaluated = minimax.getTotalNumberPositionsEvaluated();
         runtimeInSeconds = minimax.runtimeInSeconds;
         positionsEvaluatedPerSecond = minimax.positionsEvaluatedPerSecond;
 
         cutoffReached = minimax.cutoffReached;
         bestValue = minimax.bestValueAcrossDepths;
+        aspirationResearches = minimax.getPerDepthString(minimax.aspirationResearchesPerDepth);
+        nullMoveCutoffs = minimax.getPerDepthString(minimax.nullMoveCutoffsPerDepth);
         principalVariation = minimax.principalVariation;
 
         statisticsHaveChanged = true;
@@ -481,20 +554,20 @@ public class MainApplication extends Application {
         outcome = game.getOutcome();
         turnToDisplay = game.whoseTurn;
         whiteCastleRightString =
-                (game.whiteKing.canShortCastle ? "short" : "") + ", " +
-                        (game.whiteKing.canLongCastle ? "long" : "");
+                ((game.castleRights & CastleRights.WHITE_SHORT) != 0 ? "short" : "") + ", " +
+                        ((game.castleRights & CastleRights.WHITE_LONG) != 0 ? "long" : "");
         blackCastleRightString =
-                (game.blackKing.canShortCastle ? "short" : "") + ", " +
-                        (game.blackKing.canLongCastle ? "long" : "");
+                ((game.castleRights & CastleRights.BLACK_SHORT) != 0 ? "short" : "") + ", " +
+                        ((game.castleRights & CastleRights.BLACK_LONG) != 0 ? "long" : "");
 
         timesPositionReached = game.getRepetitionsOfCurrentPosition();
         numberOfMovesWithoutProgress = game.numberOfMovesWithoutProgress;
         isWhiteInCheck = game.isWhiteKingInCheck;
         isBlackInCheck = game.isBlackKingInCheck;
         pinnedPieces = game.getPinnedPieces();
-        attackedSquares = game.getAttackedSquares(game.whoseTurn.getOppositeColor(), game.getLastMove(), game.getSecondToLastMove());
+        attackedSquares = game.getAttackedSquares(game.whoseTurn.getOppositeColor());
         checkSquares = game.getCheckSquares(game.getKingToBeAttacked());
-        checkers = game.getCheckers(attackedSquares, game.getKingToBeProtected());
+        checkers = game.getCheckers();
     }
 
     boolean isInGame(){
@@ -589,20 +662,30 @@ public class MainApplication extends Application {
                 "En passant: " + game.enPassantEnabled,
                 "",
                 "Time to respond: " + engineSettings.maxSecondsToRespond,
+                "Threads: " + engineSettings.numberOfThreads + " (" + engineSettings.parallelSearchMethod
+                        + (engineSettings.parallelSearchMethod == ParallelSearchMethod.RootSplit && engineSettings.deterministicRootSplitEnabled ? ", deterministic)" : ")"),
                 "Search depth completed: " + searchDepthReached,
                 "Quiescence depth completed: " + quiescenceDepthReached,
                 "Alpha-Beta: " + engineSettings.alphaBetaPruningEnabled,
+                "Principal variation search: " + engineSettings.principalVariationSearchEnabled,
+                "Null move pruning: " + engineSettings.nullMovePruningEnabled + (engineSettings.nullMoveVerificationEnabled ? " (verified)" : ""),
+                "Late move reductions: " + engineSettings.lateMoveReductionsEnabled,
                 "Move sorting: " + engineSettings.moveSortingEnabled,
+                "Static exchange evaluation: " + engineSettings.staticExchangeEvaluationEnabled,
                 "Quiescence search: " + engineSettings.quiescenceSearchEnabled,
-                "PvTables: " + engineSettings.pvTablesEnabled,
+                "Transposition table: " + engineSettings.transpositionTableEnabled + " (" + engineSettings.transpositionTableSizeInMB + " MB"
+                        + (engineSettings.offHeapTranspositionTableEnabled ? ", off-heap)" : ")"),
+                "Aspiration windows: " + engineSettings.aspirationWindowsEnabled + " (" + engineSettings.aspirationWindowInCentipawns + " cp)",
                 "Auto-queen: " + engineSettings.autoQueenActivated,
                 "",
                 "Runtime (in sec): " + runtimeInSeconds,
                 "Positions evaluated: " + totalNumberPositionsEvaluated,
                 "Positions evaluated (per sec): " + positionsEvaluatedPerSecond,
                 "Cut-off reached: " + cutoffReached,
+                "Aspiration re-searches per depth: " + aspirationResearches,
+                "Null move cutoffs per depth: " + nullMoveCutoffs,
                 "",
-                String.format("Best value: %.4f", bestValue),
+                "Best value: " + EvaluationMethod.scoreToString(bestValue),
                 "",
                 "[U] to undo move",
                 "[E] to start engine",
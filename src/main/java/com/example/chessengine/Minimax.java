@@ -1,11 +1,16 @@
 package com.example.chessengine;
 
-import javafx.util.Pair;
-
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 public class Minimax implements Runnable{
@@ -23,8 +28,10 @@ public class Minimax implements Runnable{
     int cutoffReached = 0;
     long start;
 
-    double bestValueAcrossDepths = 0.0;
-    Move bestMoveAcrossDepths = null;
+    int bestValueAcrossDepths = 0;
+    int bestMoveAcrossDepths = MoveEncoding.NO_MOVE;
+    // what the GUI plays (the search itself only knows int moves)
+    Move engineMove;
     Variation principalVariation;
     Thread thread;
     double runtimeInSeconds;
@@ -34,19 +41,105 @@ public class Minimax implements Runnable{
     int millisSinceLastLifeSign = 1000;
     long timeStampLastLifeSign;
 
-    // don't use pvTables in quiescence for now
-    HashMap<String, Move> pvTable;
+    // shared across engine moves (not used in quiescence for now)
+    TranspositionTable transpositionTable;
+    TranspositionTable.Entry transpositionEntry;
+
+    // every ply gets its own slice for generating and sorting moves, so the search doesn't allocate
+    static final int MAX_PLY = 128;
+    int[][] moveBuffers;
+    int[][] moveScores;
+    // swap list of the static exchange evaluation
+    int[] exchangeGains;
+
+    // quiet moves that caused a cutoff: two per ply (newest first) and by side, from and to square
+    // history counters are kept in [-MAX_HISTORY, MAX_HISTORY] (every update pulls them towards zero a bit)
+    // all of them start empty with every search (there's a new Minimax for every engine move)
+    static final int MAX_HISTORY = 16384;
+    int[][] killerMoves;
+    int[][][] history;
+    // the quiet move that last refuted a move, by piece and destination square of the refuted move
+    int[][] counterMoves;
+
+    // triangular table: the best line found from every ply on
+    int[][] principalVariations;
+    boolean[][] principalVariationIsQuiescence;
+    int[] principalVariationLengths;
+
+    // number of moves on the board when the search started (repetitions after it are draws)
+    int rootPly;
+
+    // fixed depth searches (benchmarks) stop here
+    int depthLimit = MAX_PLY;
+
+    // how often the aspiration window failed, per search depth
+    int[] aspirationResearchesPerDepth = new int[MAX_PLY];
+
+    static final int LATE_MOVE_REDUCTION_MIN_DEPTH = 3;
+    // the first moves (hash move, captures, checks) are never reduced
+    static final int LATE_MOVE_REDUCTION_MIN_MOVE_NUMBER = 3;
+    static final int[][] LATE_MOVE_REDUCTIONS = computeLateMoveReductions();
+
+    // null move pruning needs at least this much depth left (the reduced search would be a plain quiescence search otherwise)
+    static final int NULL_MOVE_MIN_DEPTH = 3;
+    static final int NULL_MOVE_VERIFICATION_MIN_DEPTH = 5;
+    // no null moves before this ply (while a null move cutoff is verified)
+    int nullMoveMinPly;
+    int[] nullMoveCutoffsPerDepth = new int[MAX_PLY];
+
+    // private table of a deterministic root split worker, emptied for every root move
+    static final int DETERMINISTIC_WORKER_TABLE_SIZE_IN_MB = 4;
+
+    // quiet moves that lose material on their square are skipped this close to the leaves
+    static final int STATIC_EXCHANGE_PRUNING_MAX_DEPTH = 2;
+    // allowed loss per ply of depth left (in centipawns)
+    static final int STATIC_EXCHANGE_PRUNING_MARGIN = 50;
+
+    // helpers of every parallel search method, each with its own game copy
+    // lazy SMP: helpers search the same position, they only share the transposition table
+    // (their results come back through the table, the move played is always the one of this search)
+    Minimax[] helpers;
+    Thread[] helperThreads;
+    // set for the helpers when the main search is done
+    volatile boolean stopped;
+
+    // root split: the helpers are workers that take root moves from the pool instead of running on their own
+    ForkJoinPool rootPool;
+    BlockingQueue<Minimax> idleWorkers;
+    // results per root move of the current iteration (written by the workers, read after the pool is done)
+    int[] rootScores;
+    int[][] rootVariations;
+    boolean[][] rootVariationIsQuiescence;
+
+    // young brothers wait: helpers wait in the idle queue until a split point is handed to them
+    static final int MIN_SPLIT_DEPTH = 3;
+    Deque<Minimax> idleHelpers;
+    BlockingQueue<SplitPoint> assignedSplitPoints;
+    // the innermost split point this thread works in (null if none)
+    SplitPoint splitPoint;
 
     EngineSettings engineSettings;
 
     OpeningBook openingBook;
 
-    public Minimax(EngineSettings engineSettings, Game game, OpeningBook openingBook, Function<Minimax, Void> updateStatistics, EvaluationMethod evaluationMethod){
+    public Minimax(EngineSettings engineSettings, Game game, OpeningBook openingBook, TranspositionTable transpositionTable,
+                   Function<Minimax, Void> updateStatistics, EvaluationMethod evaluationMethod){
         this.engineSettings = engineSettings;
         this.game = game;
         this.updateStatistics = updateStatistics;
         this.evaluationMethod = evaluationMethod;
-        pvTable = new HashMap<>();
+        this.transpositionTable = transpositionTable;
+        transpositionEntry = new TranspositionTable.Entry();
+
+        moveBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        moveScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        exchangeGains = new int[StaticExchangeEvaluation.MAX_EXCHANGE_LENGTH];
+        killerMoves = new int[MAX_PLY][2];
+        history = new int[2][64][64];
+        counterMoves = new int[12][64];
+        principalVariations = new int[MAX_PLY + 1][MAX_PLY + 1];
+        principalVariationIsQuiescence = new boolean[MAX_PLY + 1][MAX_PLY + 1];
+        principalVariationLengths = new int[MAX_PLY + 1];
 
         timeStampLastLifeSign = System.currentTimeMillis();
 
@@ -64,11 +157,13 @@ public class Minimax implements Runnable{
 
         start = System.currentTimeMillis();
 
+        startHelpers();
         determineBestMove();
+        stopHelpers();
 
         updateStatistics.apply(this);
 
-        return bestMoveAcrossDepths;
+        return bestMoveAcrossDepths != MoveEncoding.NO_MOVE ? game.toMove(bestMoveAcrossDepths) : null;
     }
 
     // adaptive quiescence search
@@ -90,30 +185,99 @@ public class Minimax implements Runnable{
     // always uses quiescence search and sorting
     // color = white(1) or black(-1)
     // new moves are set in call above
-    public Variation alphaBeta(double alpha, double beta, int depth, int color){
+    public int alphaBeta(int alpha, int beta, int depth, int color, int ply){
+
+        principalVariationLengths[ply] = 0;
+
+        // don't search a repetition again
+        if(game.isDrawByRepetitionInSearch(rootPly)){
+            return 0;
+        }
+        // the move into this position can already have ended the game (50 move rule, insufficient material)
+        if(game.isOver()){
+            return evaluate(color, ply);
+        }
+
+        // mate distance pruning: nothing below can be better than mating right now or worse than being mated right now
+        alpha = Math.max(alpha, -EvaluationMethod.MATE_SCORE + ply);
+        beta = Math.min(beta, EvaluationMethod.MATE_SCORE - ply - 1);
+        if(alpha >= beta){
+            return alpha;
+        }
+
+        // a position that was already searched at least as deep can be answered from the table
+        // (game over positions are never stored, so this can come before the move generation)
+        long key = game.getKey();
+        int hashMove = MoveEncoding.NO_MOVE;
+        if(depth > 0 && engineSettings.transpositionTableEnabled && transpositionTable.probe(key, transpositionEntry)){
+            hashMove = transpositionEntry.move;
+
+            if(transpositionEntry.depth >= depth){
+                int storedScore = TranspositionTable.scoreFromTable(transpositionEntry.score, ply);
+                int bound = transpositionEntry.bound;
+
+                if(bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && storedScore >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && storedScore <= alpha)){
+                    // fail hard like the search itself
+                    return Math.max(alpha, Math.min(beta, storedScore));
+                }
+            }
+        }
+
+        // null move pruning: if the opponent can't even punish passing the turn, a real move won't do worse
+        // (not in check, not twice in a row and not when zugzwang is likely, since then passing would be the best move)
+        if(engineSettings.nullMovePruningEnabled && depth >= NULL_MOVE_MIN_DEPTH && ply >= nullMoveMinPly
+                && game.checkers == 0 && !game.isLastMoveNullMove() && beta < EvaluationMethod.MATE_SCORE - MAX_PLY
+                && isZugzwangUnlikely()){
+
+            int reducedDepth = Math.max(0, depth - 1 - (depth >= 6 ? 3 : 2));
+
+            game.makeNullMove();
+            int score = -alphaBeta(-beta, -beta + 1, reducedDepth, -color, ply + 1);
+            game.undoNullMove();
+
+            if(score >= beta && !isTimeUp()){
+                // verification: the same node searched shallower without null moves below it has to fail high as well
+                if(engineSettings.nullMoveVerificationEnabled && depth >= NULL_MOVE_VERIFICATION_MIN_DEPTH){
+                    int outerNullMoveMinPly = nullMoveMinPly;
+                    nullMoveMinPly = ply + reducedDepth + 1;
+                    score = alphaBeta(beta - 1, beta, reducedDepth, color, ply);
+                    nullMoveMinPly = outerNullMoveMinPly;
+                }
+                if(score >= beta && !isTimeUp()){
+                    nullMoveCutoffsPerDepth[searchDepthReached + 1]++;
+                    principalVariationLengths[ply] = 0;
+                    return beta;
+                }
+            }
+        }
 
         // this sets game over
-        List<Move> legalMoves = game.getLegalMoves();
+        int[] legalMoves = moveBuffers[ply];
+        int numberOfLegalMoves = game.generateLegalMoves(legalMoves, 0);
 
         if(game.isOver()){
-            return new Variation(color * evaluationMethod.staticEvaluation(game));
+            return evaluate(color, ply);
         }
         else if(depth == 0){
             if(engineSettings.quiescenceSearchEnabled){
-                return quiesce(alpha, beta, color, quiescenceDepthForSearchDepth());
+                return quiesce(alpha, beta, color, quiescenceDepthForSearchDepth(), ply);
             }
-            return quiesce(alpha, beta, color, 0);
+            return quiesce(alpha, beta, color, 0, ply);
         }
 
         if(engineSettings.moveSortingEnabled) {
-            legalMoves = getSortedWithPVTableIfEnabled(legalMoves);
+            sortMoves(legalMoves, numberOfLegalMoves, ply, hashMove);
         }
 
-        Variation bestVariation = null;
+        assert numberOfLegalMoves > 0 : "no legal moves but not game over!";
+
+        int bestMove = MoveEncoding.NO_MOVE;
 
-        assert legalMoves.size() > 0 : "no legal moves but not game over!";
+        for(int i = 0; i < numberOfLegalMoves; i++){
 
-        for(Move move : legalMoves){
+            int move = legalMoves[i];
 
             updateStatisticsAtInterval();
 
@@ -121,56 +285,328 @@ public class Minimax implements Runnable{
                 break;
             }
 
-            game.executeMove(move);
+            // young brothers wait: once the eldest brother is searched, idle helpers can take the others
+            if(i > 0 && depth >= MIN_SPLIT_DEPTH && idleHelpers != null && !idleHelpers.isEmpty()){
+                SplitPoint splitPoint = searchSplitPoint(legalMoves, i, numberOfLegalMoves, alpha, beta, depth, color, ply);
+                if(splitPoint != null){
+                    if(splitPoint.cutoff){
+                        cutoffReached++;
+                        principalVariationLengths[ply] = 0;
+                        updateQuietMoveStatistics(splitPoint.bestMove, depth, ply, legalMoves, 0);
+                        storeIfEnabled(key, splitPoint.bestMove, depth, TranspositionTable.LOWER_BOUND, beta, ply);
+                        return beta;
+                    }
+                    if(splitPoint.bestMove != MoveEncoding.NO_MOVE){
+                        alpha = splitPoint.alpha;
+                        bestMove = splitPoint.bestMove;
+                        setLineAfterMove(ply, splitPoint.bestLine, splitPoint.bestLineIsQuiescence);
+                        updatePrincipalVariation(bestMove, ply, false);
+                    }
+                    break;
+                }
+            }
 
-            Variation variationAfterMove = alphaBeta(-beta, -alpha, depth - 1, -color);
-            variationAfterMove.score *= -1;
-            Variation variationWithMove = new Variation(move, variationAfterMove, false);
+            if(isPrunedByStaticExchange(move, alpha, depth, ply, i)){
+                continue;
+            }
 
-            game.undoLastMove();
+            int reduction = getLateMoveReduction(move, depth, ply, i);
+            game.makeMove(move);
+            int score = searchChild(alpha, beta, depth - 1, reduction, color, ply, i == 0);
+            game.undoMove();
 
-            if(variationWithMove.score >= beta){
+            if(score >= beta){
                 cutoffReached++;
-                return new Variation(beta);
+                principalVariationLengths[ply] = 0;
+                updateQuietMoveStatistics(move, depth, ply, legalMoves, i);
+                storeIfEnabled(key, move, depth, TranspositionTable.LOWER_BOUND, beta, ply);
+                return beta;
+            }
+            if(score > alpha){
+                alpha = score;
+                bestMove = move;
+                updatePrincipalVariation(move, ply, false);
+            }
+        }
+        // no move raised alpha: all we know is that the position isn't better than alpha
+        storeIfEnabled(key, bestMove, depth, bestMove != MoveEncoding.NO_MOVE ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND, alpha, ply);
+        return alpha;
+    }
+
+    // the move to the child is already made, depth and color are the child's and the parent's
+    // principal variation search: the first move is most likely the best one (hash move, sorting),
+    // the others are searched with a null window to show they aren't better and again with the whole window only if they are
+    int searchChild(int alpha, int beta, int depth, int reduction, int color, int ply, boolean isFirstMove){
+        if(isFirstMove){
+            return -alphaBeta(-beta, -alpha, depth, -color, ply + 1);
+        }
+        // a reduced move that fails high gets the full depth
+        if(reduction > 0){
+            int score = -alphaBeta(-alpha - 1, -alpha, depth - reduction, -color, ply + 1);
+            if(score <= alpha || isTimeUp()){
+                return score;
+            }
+        }
+        if(!engineSettings.principalVariationSearchEnabled){
+            return -alphaBeta(-beta, -alpha, depth, -color, ply + 1);
+        }
+        int score = -alphaBeta(-alpha - 1, -alpha, depth, -color, ply + 1);
+        if(score > alpha && score < beta && !isTimeUp()){
+            score = -alphaBeta(-beta, -alpha, depth, -color, ply + 1);
+        }
+        return score;
+    }
+
+    // late move reductions: quiet moves sorted far back rarely turn out best, they are searched shallower first
+    // (not in check, not for killers, not with unsorted moves, the child keeps at least one ply)
+    int getLateMoveReduction(int move, int depth, int ply, int moveNumber){
+        if(!engineSettings.lateMoveReductionsEnabled || !engineSettings.moveSortingEnabled
+                || depth < LATE_MOVE_REDUCTION_MIN_DEPTH || moveNumber < LATE_MOVE_REDUCTION_MIN_MOVE_NUMBER
+                || game.checkers != 0 || !isQuietMove(move) || isKillerMove(move, ply)){
+            return 0;
+        }
+        return Math.min(LATE_MOVE_REDUCTIONS[Math.min(depth, MAX_PLY - 1)][moveNumber], depth - 2);
+    }
+
+    // static exchange pruning: a quiet move that hangs the moved piece near the leaves is hardly ever best
+    // (never the first move, not in check, not for killers, not while mates are around)
+    boolean isPrunedByStaticExchange(int move, int alpha, int depth, int ply, int moveNumber){
+        if(!engineSettings.staticExchangeEvaluationEnabled || depth > STATIC_EXCHANGE_PRUNING_MAX_DEPTH || moveNumber == 0
+                || game.checkers != 0 || !isQuietMove(move) || isKillerMove(move, ply) || EvaluationMethod.isMateScore(alpha)){
+            return false;
+        }
+        return StaticExchangeEvaluation.evaluate(game, move, exchangeGains) < -STATIC_EXCHANGE_PRUNING_MARGIN * depth;
+    }
+
+    static boolean isQuietMove(int move){
+        return !isCaptureOrPromotion(move) && !MoveEncoding.isCheck(move);
+    }
+
+    static boolean isCaptureOrPromotion(int move){
+        return MoveEncoding.isCapture(move) || MoveEncoding.isPromotion(move);
+    }
+
+    boolean isKillerMove(int move, int ply){
+        return MoveEncoding.isSameMove(move, killerMoves[ply][0]) || MoveEncoding.isSameMove(move, killerMoves[ply][1]);
+    }
+
+    // a quiet move that caused a cutoff becomes a killer and the countermove of the last move and gains history,
+    // the quiet moves searched before it lose some (captures and promotions are already sorted first)
+    void updateQuietMoveStatistics(int cutoffMove, int depth, int ply, int[] moves, int numberOfMovesBefore){
+        if(isCaptureOrPromotion(cutoffMove)){
+            return;
+        }
+        if(!MoveEncoding.isSameMove(cutoffMove, killerMoves[ply][0])){
+            killerMoves[ply][1] = killerMoves[ply][0];
+            killerMoves[ply][0] = cutoffMove;
+        }
+        int lastMove = getLastMove();
+        if(lastMove != MoveEncoding.NO_MOVE){
+            counterMoves[MoveEncoding.getPiece(lastMove)][MoveEncoding.getTo(lastMove)] = cutoffMove;
+        }
+
+        int bonus = Math.min(depth * depth, MAX_HISTORY);
+        updateHistory(cutoffMove, bonus);
+        for(int i = 0; i < numberOfMovesBefore; i++){
+            if(!isCaptureOrPromotion(moves[i])){
+                updateHistory(moves[i], -bonus);
             }
-            if(variationWithMove.score > alpha){
-                alpha = variationWithMove.score;
-                bestVariation = variationWithMove;
-                insertIntoPVTableIfEnabled(move);
+        }
+    }
+
+    // gravity: the closer a counter is to the limit, the less it moves in that direction
+    void updateHistory(int move, int bonus){
+        int[] historyOfPiece = history[BitboardPosition.colorOf(MoveEncoding.getPiece(move))][MoveEncoding.getFrom(move)];
+        int to = MoveEncoding.getTo(move);
+        historyOfPiece[to] += bonus - historyOfPiece[to] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    // deterministic root split workers start every root move without them
+    void clearMoveOrderingTables(){
+        for(int[] killersAtPly : killerMoves){
+            Arrays.fill(killersAtPly, MoveEncoding.NO_MOVE);
+        }
+        for(int[] counterMovesOfPiece : counterMoves){
+            Arrays.fill(counterMovesOfPiece, MoveEncoding.NO_MOVE);
+        }
+        for(int[][] historyOfSide : history){
+            for(int[] historyOfSquare : historyOfSide){
+                Arrays.fill(historyOfSquare, 0);
             }
         }
-        return bestVariation != null ? bestVariation : new Variation(alpha);
     }
 
-    void insertIntoPVTableIfEnabled(Move move){
-        if(engineSettings.pvTablesEnabled){
-            pvTable.put(game.toString(), move);
+    // NO_MOVE at the start of the game and after a null move
+    int getLastMove(){
+        return game.undoStack.size > 0 ? game.undoStack.moves[game.undoStack.size - 1] : MoveEncoding.NO_MOVE;
+    }
+
+    // reduction by depth and move number, grows with the log of both
+    static int[][] computeLateMoveReductions(){
+        int[][] reductions = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        for(int depth = 1; depth < MAX_PLY; depth++){
+            for(int moveNumber = 1; moveNumber < MoveGenerator.MAX_MOVES; moveNumber++){
+                reductions[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+        return reductions;
+    }
+
+    // results of an interrupted search are incomplete, they don't go into the table
+    void storeIfEnabled(long key, int move, int depth, int bound, int score, int ply){
+        if(engineSettings.transpositionTableEnabled && !isTimeUp()){
+            transpositionTable.store(key, move, depth, bound, TranspositionTable.scoreToTable(score, ply));
+        }
+    }
+
+    // with only king and pawns (or a single minor piece) zugzwangs are common
+    boolean isZugzwangUnlikely(){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+
+        long minorPieces = bitboards.getPieces(us, BitboardPosition.KNIGHT) | bitboards.getPieces(us, BitboardPosition.BISHOP);
+        long majorPieces = bitboards.getPieces(us, BitboardPosition.ROOK) | bitboards.getPieces(us, BitboardPosition.QUEEN);
+        return majorPieces != 0 || Long.bitCount(minorPieces) >= 2;
+    }
+
+    // side to move's point of view, mates count from the root so a quicker mate scores higher
+    int evaluate(int color, int ply){
+        int score = color * evaluationMethod.staticEvaluation(game);
+        if(score >= EvaluationMethod.MATE_SCORE){
+            return EvaluationMethod.MATE_SCORE - ply;
+        }
+        if(score <= -EvaluationMethod.MATE_SCORE){
+            return -EvaluationMethod.MATE_SCORE + ply;
+        }
+        return score;
+    }
+
+    // a line found by another thread becomes the line after the move at this ply
+    void setLineAfterMove(int ply, int[] line, boolean[] lineIsQuiescence){
+        System.arraycopy(line, 0, principalVariations[ply + 1], 0, line.length);
+        System.arraycopy(lineIsQuiescence, 0, principalVariationIsQuiescence[ply + 1], 0, line.length);
+        principalVariationLengths[ply + 1] = line.length;
+    }
+
+    // hands the moves from firstMoveIndex on to the idle helpers and searches them together with them
+    // null if all helpers were taken in the meantime (then this thread goes on alone)
+    SplitPoint searchSplitPoint(int[] moves, int firstMoveIndex, int numberOfMoves, int alpha, int beta, int depth, int color, int ply){
+        SplitPoint newSplitPoint = new SplitPoint(splitPoint, moves, firstMoveIndex, numberOfMoves, alpha, beta, depth, color, ply);
+
+        Minimax helper;
+        int numberOfHelpers = 0;
+        while((helper = idleHelpers.poll()) != null){
+            // the helper only touches these after taking the split point from its queue
+            helper.game.copySearchStateFrom(game);
+            helper.rootPly = rootPly;
+            helper.searchDepthReached = searchDepthReached;
+            // inside a null move verification search the helper mustn't make null moves either
+            helper.nullMoveMinPly = nullMoveMinPly;
+
+            newSplitPoint.helperJoined();
+            helper.assignedSplitPoints.add(newSplitPoint);
+            numberOfHelpers++;
+        }
+        if(numberOfHelpers == 0){
+            return null;
+        }
+
+        SplitPoint outerSplitPoint = splitPoint;
+        splitPoint = newSplitPoint;
+        searchMovesOfSplitPoint(newSplitPoint);
+        splitPoint = outerSplitPoint;
+
+        try {
+            newSplitPoint.waitForHelpers();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return newSplitPoint;
+    }
+
+    // master and helpers take moves until none are left or the split point is cancelled
+    void searchMovesOfSplitPoint(SplitPoint splitPoint){
+        int ply = splitPoint.ply;
+        int index;
+
+        while(!isTimeUp() && (index = splitPoint.takeNextMoveIndex()) < splitPoint.numberOfMoves){
+            int move = splitPoint.moves[index];
+
+            updateStatisticsAtInterval();
+
+            if(isPrunedByStaticExchange(move, splitPoint.alpha, splitPoint.depth, ply, index)){
+                continue;
+            }
+
+            // the eldest brother was searched before the split
+            int reduction = getLateMoveReduction(move, splitPoint.depth, ply, index);
+            game.makeMove(move);
+            int score = searchChild(splitPoint.alpha, splitPoint.beta, splitPoint.depth - 1, reduction, splitPoint.color, ply, false);
+            game.undoMove();
+
+            if(isTimeUp()){
+                break;
+            }
+            splitPoint.update(move, score, principalVariations[ply + 1], principalVariationIsQuiescence[ply + 1], principalVariationLengths[ply + 1]);
         }
     }
+
+    // what a young brothers wait helper thread does until the search is stopped
+    void helpAtSplitPoints(){
+        while(!stopped){
+            try {
+                splitPoint = assignedSplitPoints.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            SplitPoint assignedSplitPoint = splitPoint;
+            searchMovesOfSplitPoint(assignedSplitPoint);
+            splitPoint = null;
+
+            idleHelpers.add(this);
+            assignedSplitPoint.helperFinished();
+        }
+    }
+
+    // the line below this ply becomes the line after the move
+    void updatePrincipalVariation(int move, int ply, boolean isPartOfQuiescence){
+        principalVariations[ply][0] = move;
+        principalVariationIsQuiescence[ply][0] = isPartOfQuiescence;
+
+        int lengthAfterMove = principalVariationLengths[ply + 1];
+        System.arraycopy(principalVariations[ply + 1], 0, principalVariations[ply], 1, lengthAfterMove);
+        System.arraycopy(principalVariationIsQuiescence[ply + 1], 0, principalVariationIsQuiescence[ply], 1, lengthAfterMove);
+        principalVariationLengths[ply] = lengthAfterMove + 1;
+    }
+
     // when directly game over, we have call from above
-    Variation quiesce(double alpha, double beta, int color, int depth){
+    int quiesce(int alpha, int beta, int color, int depth, int ply){
+
+        principalVariationLengths[ply] = 0;
 
         totalNumberPositionsEvaluated++;
-        double standPat = color * evaluationMethod.staticEvaluation(game);
+        int standPat = evaluate(color, ply);
 
-        if(depth == 0){
-            return new Variation(standPat);
+        // a capture can end the game (insufficient material, 50 move rule)
+        if(depth == 0 || game.isOver()){
+            return standPat;
         }
 
         if (standPat >= beta) {
-            return new Variation(beta);
+            return beta;
         }
         if (alpha < standPat) {
             alpha = standPat;
         }
 
         // every other call can be sure that caller invoked setPossibleMoves()
-        List<Move> pseudoLegalCaptures = game.getPseudoLegalCaptures();
-        sortCapturesIfEnabled(pseudoLegalCaptures);
+        int[] pseudoLegalCaptures = moveBuffers[ply];
+        int numberOfCaptures = game.generatePseudoLegalCaptures(pseudoLegalCaptures, 0);
+        sortCapturesIfEnabled(pseudoLegalCaptures, numberOfCaptures);
 
-        Variation bestVariation = new Variation(alpha);
+        for(int i = 0; i < numberOfCaptures; i++){
 
-        for(Move move : pseudoLegalCaptures){
+            int move = pseudoLegalCaptures[i];
 
             updateStatisticsAtInterval();
 
@@ -178,98 +614,147 @@ public class Minimax implements Runnable{
                 break;
             }
             // how to handle illegal moves (we generate pseudo legal ones)
-            Variation variationWithMove;
-
-            if(!move.isKingCapture()) {
-                game.executeMove(move);
+            int score;
 
-                Variation variationAfterMove = quiesce(-beta, -alpha, -color, depth - 1);
-                variationAfterMove.score *= -1;
-                variationWithMove = new Variation(move, variationAfterMove, true);
+            // a capture that loses material on its square won't raise alpha over the stand pat
+            if(isLosingCapture(move)){
+                continue;
+            }
 
-                game.undoLastMove();
+            if(!Game.isKingCapture(move)) {
+                game.makeMove(move);
+                score = -quiesce(-beta, -alpha, -color, depth - 1, ply + 1);
+                game.undoMove();
             }
             else{
-                variationWithMove = new Variation(move, new Variation(Double.POSITIVE_INFINITY), true);
+                // the last move left the king en prise, as good as a mate
+                score = EvaluationMethod.MATE_SCORE - ply;
+                principalVariationLengths[ply + 1] = 0;
             }
 
-            if(variationWithMove.score >= beta){
-                return new Variation(beta);
+            if(score >= beta){
+                principalVariationLengths[ply] = 0;
+                return beta;
             }
-            if(variationWithMove.score > alpha){
-                alpha = variationWithMove.score;
-                bestVariation = variationWithMove;
+            if(score > alpha){
+                alpha = score;
+                updatePrincipalVariation(move, ply, true);
             }
         }
-        return bestVariation;
+        return alpha;
     }
 
-    List<Move> getSortedWithPVTableIfEnabled(List<Move> legalMoves){
-        Move pvMove = engineSettings.pvTablesEnabled ? pvTable.getOrDefault(game.toString(), null) : null;
-        return pvMove != null ? getSortedMoves(legalMoves, pvMove) : getSortedMoves(legalMoves);
-    }
-
-    // doesn't seem to hurt performance that bad
-    List<Move> getSortedMoves(List<Move> possibleMoves){
-        List<Pair<Move, Integer>> tags = new ArrayList<>();
-        for(Move move : possibleMoves){
-            tags.add(FeatureBasedEvaluationMethod.getTag(move));
+    // the best move from the transposition table goes first
+    // quiet moves: killers right after the good captures, then the countermove, the others by their history
+    // captures that lose material go after the quiet moves
+    void sortMoves(int[] moves, int numberOfMoves, int ply, int hashMove){
+        // doesn't seem to hurt performance that bad
+        int[] scores = moveScores[ply];
+        FeatureBasedEvaluationMethod.scoreMoves(moves, scores, numberOfMoves, hashMove);
+
+        int lastMove = getLastMove();
+        int counterMove = lastMove != MoveEncoding.NO_MOVE
+                ? counterMoves[MoveEncoding.getPiece(lastMove)][MoveEncoding.getTo(lastMove)] : MoveEncoding.NO_MOVE;
+
+        for(int i = 0; i < numberOfMoves; i++){
+            int move = moves[i];
+            if(isCaptureOrPromotion(move)){
+                if(MoveEncoding.isCapture(move) && isLosingCapture(move)){
+                    scores[i] -= 10000;
+                }
+                continue;
+            }
+            if(MoveEncoding.isSameMove(move, killerMoves[ply][0])){
+                scores[i] += 4000;
+            }
+            else if(MoveEncoding.isSameMove(move, killerMoves[ply][1])){
+                scores[i] += 3900;
+            }
+            else if(counterMove != MoveEncoding.NO_MOVE && MoveEncoding.isSameMove(move, counterMove)){
+                scores[i] += 3800;
+            }
+            else{
+                int side = BitboardPosition.colorOf(MoveEncoding.getPiece(move));
+                scores[i] += history[side][MoveEncoding.getFrom(move)][MoveEncoding.getTo(move)] / 16;
+            }
         }
-        return FeatureBasedEvaluationMethod.sortMovesByTags(tags);
+        FeatureBasedEvaluationMethod.sortByScores(moves, scores, numberOfMoves);
     }
 
-    List<Move> getSortedMoves(List<Move> possibleMoves, Move pvMove){
-        List<Pair<Move, Integer>> tags = new ArrayList<>();
-        for(Move move : possibleMoves){
-            tags.add(FeatureBasedEvaluationMethod.getTag(move, pvMove));
-        }
-        return FeatureBasedEvaluationMethod.sortMovesByTags(tags);
+    // only the captures of a more valuable piece need the whole exchange
+    boolean isLosingCapture(int move){
+        return engineSettings.staticExchangeEvaluationEnabled && !Game.isKingCapture(move)
+                && FeatureBasedEvaluationMethod.getCaptureValueDifference(move) < 0
+                && StaticExchangeEvaluation.evaluate(game, move, exchangeGains) < 0;
     }
 
     // for captures
-    void sortCapturesIfEnabled(List<Move> possibleMoves){
+    void sortCapturesIfEnabled(int[] moves, int numberOfMoves){
         if(engineSettings.moveSortingEnabled){
-            FeatureBasedEvaluationMethod.sortMoves(possibleMoves);
+            FeatureBasedEvaluationMethod.sortCaptures(moves, numberOfMoves);
         }
     }
 
     void determineBestMove(){
 
-        List<Move> legalMoves = game.getLegalMoves();
-        assert !legalMoves.isEmpty() : "game already over";
+        rootPly = game.undoStack.size;
+        int[] legalMoves = moveBuffers[0];
+        int numberOfLegalMoves = game.generateLegalMoves(legalMoves, 0);
+        assert numberOfLegalMoves > 0 : "game already over";
 
         if(engineSettings.moveSortingEnabled) {
-            legalMoves = getSortedWithPVTableIfEnabled(legalMoves);
+            int hashMove = engineSettings.transpositionTableEnabled && transpositionTable.probe(game.getKey(), transpositionEntry)
+                    ? transpositionEntry.move : MoveEncoding.NO_MOVE;
+            sortMoves(legalMoves, numberOfLegalMoves, 0, hashMove);
         }
         int color = game.whoseTurn == PieceColor.White ? 1 : -1;
 
-        while(!isTimeUp()) {
-
-            double bestValueAtDepth = Double.NEGATIVE_INFINITY;
-            Move bestMoveAtDepth = null;
-            Variation bestVariationAtDepth = null;
+        // stop before the plies run out of move buffers
+        while(!isTimeUp() && searchDepthReached < depthLimit && searchDepthReached + 1 + quiescenceDepthForSearchDepth() < MAX_PLY) {
 
-            for (Move move : legalMoves) {
+            int depth = searchDepthReached + 1;
+            int window = Math.max(1, engineSettings.aspirationWindowInCentipawns);
+            int alpha = -EvaluationMethod.INFINITE_SCORE;
+            int beta = EvaluationMethod.INFINITE_SCORE;
 
-                game.executeMove(move);
-
-                Variation variationAfterMove = alphaBeta(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, searchDepthReached + 1, -color);
-                variationAfterMove.score *= -1;
-                Variation variationWithMove = new Variation(move, variationAfterMove, false);
+            // aspiration window: the score usually doesn't move far from the one of the last depth
+            if(engineSettings.aspirationWindowsEnabled && searchDepthReached > 0 && !EvaluationMethod.isMateScore(bestValueAcrossDepths)){
+                alpha = Math.max(-EvaluationMethod.INFINITE_SCORE, bestValueAcrossDepths - window);
+                beta = Math.min(EvaluationMethod.INFINITE_SCORE, bestValueAcrossDepths + window);
+            }
+            aspirationResearchesPerDepth[depth] = 0;
+            nullMoveCutoffsPerDepth[depth] = 0;
 
-                game.undoLastMove();
+            int bestIndex;
+            while(true){
+                bestIndex = rootPool != null
+                        ? searchRootMovesInParallel(legalMoves, numberOfLegalMoves, color, alpha, beta)
+                        : searchRootMoves(legalMoves, numberOfLegalMoves, color, alpha, beta);
+                int score = rootScores[bestIndex];
 
-                if (variationWithMove.score > bestValueAtDepth) {
-                    bestValueAtDepth = variationWithMove.score;
-                    bestMoveAtDepth = move;
-                    bestVariationAtDepth = variationWithMove;
-                    insertIntoPVTableIfEnabled(move);
+                if(isTimeUp()){
+                    break;
                 }
-
-                if (isTimeUp()) {
+                // outside of the window the score is only a bound, search again with a wider one on that side
+                if(score <= alpha && alpha > -EvaluationMethod.INFINITE_SCORE){
+                    window *= 2;
+                    alpha = Math.max(-EvaluationMethod.INFINITE_SCORE, score - window);
+                }
+                else if(score >= beta && beta < EvaluationMethod.INFINITE_SCORE){
+                    window *= 2;
+                    beta = Math.min(EvaluationMethod.INFINITE_SCORE, score + window);
+                }
+                else{
                     break;
                 }
+                aspirationResearchesPerDepth[depth]++;
+                updateStatistics.apply(this);
             }
+
+            int bestValueAtDepth = rootScores[bestIndex];
+            int bestMoveAtDepth = legalMoves[bestIndex];
+            Variation bestVariationAtDepth = getPrincipalVariation(bestValueAtDepth);
+
             // batch completed before cutoff
             if(!isTimeUp()) {
                 bestMoveAcrossDepths = bestMoveAtDepth;
@@ -278,23 +763,273 @@ public class Minimax implements Runnable{
 
                 quiescenceDepthReached = quiescenceDepthForSearchDepth();
                 searchDepthReached++;
+
+                // the root search only ends inside the window, so the best score is exact
+                storeIfEnabled(game.getKey(), bestMoveAtDepth, searchDepthReached + 1, TranspositionTable.EXACT, bestValueAtDepth, 0);
+
+                // the best move so far goes first at the next depth (it gets the whole window, the others a null window)
+                System.arraycopy(legalMoves, 0, legalMoves, 1, bestIndex);
+                legalMoves[0] = bestMoveAtDepth;
             }
             // we haven't completed a single layer in the given time, pick unfinished
-            else if(isTimeUp() && bestMoveAcrossDepths == null){
+            else if(isTimeUp() && bestMoveAcrossDepths == MoveEncoding.NO_MOVE){
                 bestMoveAcrossDepths = bestMoveAtDepth;
                 bestValueAcrossDepths = bestValueAtDepth;
                 principalVariation = bestVariationAtDepth;
             }
 
-            // mate found (prefer the quickest mate)
-            if(bestValueAtDepth == Double.POSITIVE_INFINITY){
+            // mate found (the first depth that finds it has the quickest one, deeper searches can't get out of being mated)
+            if(EvaluationMethod.isMateScore(bestValueAtDepth)){
                 break;
             }
         }
     }
 
+    // returns the index of the best move, its score is in rootScores and the principal variation at ply 0 is set for it
+    // fail hard: a score at alpha or beta is only a bound
+    int searchRootMoves(int[] moves, int numberOfMoves, int color, int alpha, int beta){
+        int depth = searchDepthReached + 1;
+        rootScores = new int[numberOfMoves];
+        int bestIndex = -1;
+
+        for (int i = 0; i < numberOfMoves; i++) {
+
+            game.makeMove(moves[i]);
+            int score = searchChild(alpha, beta, depth, 0, color, 0, i == 0);
+            game.undoMove();
+
+            rootScores[i] = score;
+            if (bestIndex < 0 || score > rootScores[bestIndex]) {
+                bestIndex = i;
+                updatePrincipalVariation(moves[i], 0, false);
+            }
+
+            if (score >= beta || isTimeUp()) {
+                break;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return bestIndex;
+    }
+
+    // root split: the first move gets the whole window, the others only have to show that they are better
+    // (null window at its score, in parallel on the workers' game copies), the ones that are get searched again
+    // by default not deterministic: the workers share the transposition table and keep their own killers and history,
+    // so scores (and sometimes the best move) depend on the timing and differ from searchRootMoves
+    // deterministic root split: every root move starts from the same state no matter which worker takes it,
+    // so a fixed depth search gives the same result with any number of threads
+    int searchRootMovesInParallel(int[] moves, int numberOfMoves, int color, int alpha, int beta){
+        int depth = searchDepthReached + 1;
+        rootScores = new int[numberOfMoves];
+        rootVariations = new int[numberOfMoves][];
+        rootVariationIsQuiescence = new boolean[numberOfMoves][];
+        // moves the workers don't get to (cutoff or time up after the first move) can't be picked
+        Arrays.fill(rootScores, -EvaluationMethod.INFINITE_SCORE);
+
+        game.makeMove(moves[0]);
+        int firstScore = -alphaBeta(-beta, -alpha, depth, -color, 1);
+        game.undoMove();
+        rootScores[0] = firstScore;
+        rootVariations[0] = Arrays.copyOf(principalVariations[1], principalVariationLengths[1]);
+        rootVariationIsQuiescence[0] = Arrays.copyOf(principalVariationIsQuiescence[1], principalVariationLengths[1]);
+
+        // the others have to be better than this (nothing beats a mate in one)
+        int bound = Math.max(alpha, firstScore);
+        if(firstScore < beta && firstScore < EvaluationMethod.MATE_SCORE - 1 && !isTimeUp()){
+            List<Callable<Void>> tasks = new ArrayList<>(numberOfMoves - 1);
+            for(int i = 1; i < numberOfMoves; i++){
+                int index = i;
+                tasks.add(() -> {
+                    searchRootMoveOnWorker(moves, index, bound, beta, depth, color);
+                    return null;
+                });
+            }
+            // a failed worker would leave its move at -infinity, better to fail the search
+            for(Future<Void> future : rootPool.invokeAll(tasks)){
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("ERROR: root move search failed on a worker!", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            // this thread was only waiting, its clock didn't move
+            runtimeInSeconds = (System.currentTimeMillis() - start) / 1000.0;
+        }
+
+        int bestIndex = 0;
+        for(int i = 1; i < numberOfMoves; i++){
+            if(rootScores[i] > rootScores[bestIndex]){
+                bestIndex = i;
+            }
+        }
+        principalVariationLengths[1] = rootVariations[bestIndex].length;
+        System.arraycopy(rootVariations[bestIndex], 0, principalVariations[1], 0, rootVariations[bestIndex].length);
+        System.arraycopy(rootVariationIsQuiescence[bestIndex], 0, principalVariationIsQuiescence[1], 0, rootVariations[bestIndex].length);
+        updatePrincipalVariation(moves[bestIndex], 0, false);
+        return bestIndex;
+    }
+
+    // moves that aren't better than the bound keep -infinity
+    private void searchRootMoveOnWorker(int[] moves, int index, int bound, int beta, int depth, int color){
+        Minimax worker;
+        try {
+            worker = idleWorkers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if(worker.isTimeUp()){
+                return;
+            }
+            worker.rootPly = rootPly;
+            worker.searchDepthReached = searchDepthReached;
+            // no trace of the root moves this worker searched before (which ones that were depends on the timing)
+            // the game too: the evaluation reads the move counts of its last move generation
+            if(engineSettings.deterministicRootSplitEnabled){
+                worker.transpositionTable.clear();
+                worker.clearMoveOrderingTables();
+                worker.game.copySearchStateFrom(game);
+            }
+
+            worker.game.makeMove(moves[index]);
+            int score = -worker.alphaBeta(-(bound + 1), -bound, depth, -color, 1);
+            // fail high: search again for the real score
+            if(score > bound && bound + 1 < beta && !worker.isTimeUp()){
+                score = -worker.alphaBeta(-beta, -bound, depth, -color, 1);
+            }
+            worker.game.undoMove();
+
+            if(score > bound && !worker.isTimeUp()){
+                rootScores[index] = score;
+                rootVariations[index] = Arrays.copyOf(worker.principalVariations[1], worker.principalVariationLengths[1]);
+                rootVariationIsQuiescence[index] = Arrays.copyOf(worker.principalVariationIsQuiescence[1], worker.principalVariationLengths[1]);
+            }
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    // e.g. "0 1 0 2" for depth 1 to 4 (the last one can still be running)
+    String getPerDepthString(int[] countsPerDepth){
+        StringBuilder counts = new StringBuilder();
+        for(int depth = 1; depth <= Math.min(searchDepthReached + 1, MAX_PLY - 1); depth++){
+            counts.append(depth > 1 ? " " : "").append(countsPerDepth[depth]);
+        }
+        return counts.toString();
+    }
+
+    // only the root builds Variation objects
+    Variation getPrincipalVariation(int score){
+        Variation variation = new Variation(score);
+        for(int i = principalVariationLengths[0] - 1; i >= 0; i--){
+            variation = new Variation(principalVariations[0][i], variation, principalVariationIsQuiescence[0][i]);
+        }
+        return variation;
+    }
+
+    // a cutoff at a split point above stops the search just like the clock
     boolean isTimeUp(){
-        return (runtimeInSeconds > engineSettings.maxSecondsToRespond);
+        return stopped || (runtimeInSeconds > engineSettings.maxSecondsToRespond)
+                || (splitPoint != null && splitPoint.isCancelled());
+    }
+
+    void startHelpers(){
+        if(engineSettings.parallelSearchMethod == ParallelSearchMethod.RootSplit){
+            startRootWorkers();
+            return;
+        }
+        if(engineSettings.parallelSearchMethod == ParallelSearchMethod.YoungBrothersWait){
+            startSplitPointHelpers();
+            return;
+        }
+        int numberOfHelpers = Math.max(0, engineSettings.numberOfThreads - 1);
+        helpers = new Minimax[numberOfHelpers];
+        helperThreads = new Thread[numberOfHelpers];
+
+        for(int i = 0; i < numberOfHelpers; i++){
+            Minimax helper = new Minimax(engineSettings, new Game(game), openingBook, transpositionTable, minimax -> null, evaluationMethod.copy());
+            helper.start = start;
+            // every other helper is one ply ahead, so they don't all walk through the same tree in the same order
+            helper.searchDepthReached = i % 2 == 0 ? 1 : 0;
+
+            helpers[i] = helper;
+            helperThreads[i] = new Thread(helper::determineBestMove, "minimax-helper-" + (i + 1));
+            helperThreads[i].start();
+        }
+    }
+
+    // one worker per pool thread, the thread searching the first root move waits while the pool runs
+    void startRootWorkers(){
+        int numberOfWorkers = Math.max(1, engineSettings.numberOfThreads);
+        helpers = new Minimax[numberOfWorkers];
+        helperThreads = new Thread[0];
+
+        for(int i = 0; i < numberOfWorkers; i++){
+            // deterministic: the shared table is only read while the workers run (the thread searching the first move waits)
+            TranspositionTable workerTable = engineSettings.deterministicRootSplitEnabled
+                    ? new PrivateTranspositionTable(DETERMINISTIC_WORKER_TABLE_SIZE_IN_MB, transpositionTable) : transpositionTable;
+            helpers[i] = new Minimax(engineSettings, new Game(game), openingBook, workerTable, minimax -> null, evaluationMethod.copy());
+            helpers[i].start = start;
+        }
+        idleWorkers = new ArrayBlockingQueue<>(numberOfWorkers, false, Arrays.asList(helpers));
+        rootPool = new ForkJoinPool(numberOfWorkers);
+    }
+
+    // the helpers sit in the idle queue until this search splits a node
+    void startSplitPointHelpers(){
+        int numberOfHelpers = Math.max(0, engineSettings.numberOfThreads - 1);
+        helpers = new Minimax[numberOfHelpers];
+        helperThreads = new Thread[numberOfHelpers];
+        idleHelpers = new ConcurrentLinkedDeque<>();
+
+        for(int i = 0; i < numberOfHelpers; i++){
+            Minimax helper = new Minimax(engineSettings, new Game(game), openingBook, transpositionTable, minimax -> null, evaluationMethod.copy());
+            helper.start = start;
+            helper.idleHelpers = idleHelpers;
+            helper.assignedSplitPoints = new ArrayBlockingQueue<>(1);
+
+            helpers[i] = helper;
+            idleHelpers.add(helper);
+            helperThreads[i] = new Thread(helper::helpAtSplitPoints, "minimax-helper-" + (i + 1));
+            helperThreads[i].start();
+        }
+    }
+
+    void stopHelpers(){
+        if(rootPool != null){
+            rootPool.shutdown();
+            rootPool = null;
+        }
+        idleHelpers = null;
+        for(Minimax helper : helpers){
+            helper.stopped = true;
+        }
+        // young brothers wait helpers are waiting for a split point
+        for(Thread helperThread : helperThreads){
+            helperThread.interrupt();
+        }
+        for(Thread helperThread : helperThreads){
+            try {
+                helperThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // including the positions of the helpers
+    int getTotalNumberPositionsEvaluated(){
+        int total = totalNumberPositionsEvaluated;
+        if(helpers != null){
+            for(Minimax helper : helpers){
+                total += helper.totalNumberPositionsEvaluated;
+            }
+        }
+        return total;
     }
 
     void updateStatisticsAtInterval(){
@@ -303,7 +1038,7 @@ public class Minimax implements Runnable{
             // time dependent statistics
             long runtimeInMillis = System.currentTimeMillis() - start;
             this.runtimeInSeconds = runtimeInMillis / 1000.0;
-            this.positionsEvaluatedPerSecond = (int) (totalNumberPositionsEvaluated / runtimeInSeconds);
+            this.positionsEvaluatedPerSecond = (int) (getTotalNumberPositionsEvaluated() / runtimeInSeconds);
 
             updateStatistics.apply(this);
 
@@ -317,7 +1052,7 @@ public class Minimax implements Runnable{
 
     @Override
     public void run() {
-        bestMoveAcrossDepths = getEngineMove();
+        engineMove = getEngineMove();
         isFinished = true;
     }
 
@@ -1,33 +1,24 @@
 package com.example.chessengine;
 
+// GUI/PGN side of a move, the engine itself only works with the packed int (see MoveEncoding)
 public class Move {
-    // set them all manually (will be more useful when we do move sorting)
-    private boolean isCheck;
-    private boolean isCapture;
-    private boolean isPromotion;
-    boolean isTwoStepPawnMove;
-    boolean isEnPassantCapture;
-    boolean isShortCastle;
-    boolean isLongCastle;
-
-    // which piece is moved
+
+    int encoded;
+
+    // which piece is moved (object of the Piece view)
     Piece piece;
-    private Piece capturedPiece;
-    private Piece promotedTo;
 
-    // for piece moves (can't use that for castling, promotion)
     int[] startingPosition;
     int[] endingPosition;
 
-    public Move(Piece piece){
+    public Move(int encoded, Piece piece){
+        this.encoded = encoded;
         this.piece = piece;
-    }
-    // for piece moves
-    // we assume the starting position is up-to-date
-    public Move(Piece piece, int[] endingPosition){
-        this(piece);
-        this.startingPosition = new int[]{piece.x, piece.y};
-        this.endingPosition = endingPosition;
+
+        int from = MoveEncoding.getFrom(encoded);
+        int to = MoveEncoding.getTo(encoded);
+        this.startingPosition = new int[]{BitboardPosition.xOf(from), BitboardPosition.yOf(from)};
+        this.endingPosition = new int[]{BitboardPosition.xOf(to), BitboardPosition.yOf(to)};
     }
 
     char toLetter(int x){
@@ -44,66 +35,50 @@ public class Move {
         String endingPositionString = toLetter(endingPosition[0]) + ", " + toChessRow(endingPosition[1]);
 
         return piece + ": " + startingPositionString + " --> " + endingPositionString
-                + (isCapture ? ", capture" : "")
-                + (isPromotion ? ", promotion to " + promotedTo : "");
-    }
-
-    public void markAsEnPassantCapture(Piece capturedPiece){
-        isEnPassantCapture = true;
-        markAsCapture(capturedPiece);
-    }
-
-    public void markAsCapture(Piece capturedPiece){
-        assert capturedPiece != null : "capturedPiece is null";
-
-        isCapture = true;
-        this.capturedPiece = capturedPiece;
+                + (isCapture() ? ", capture" : "")
+                + (isPromotion() ? ", promotion to " + MoveEncoding.toSAN(encoded).split("=")[1] : "");
     }
 
+    // the human picks the piece after choosing the square
     public void markAsPromotion(Piece promotedTo){
         assert promotedTo != null : "promotedTo is null";
 
-        this.isPromotion = true;
-        this.promotedTo = promotedTo;
+        encoded = MoveEncoding.withPromotion(encoded, BitboardPosition.getPieceIndex(promotedTo));
+        encoded = MoveGenerator.updateCheckFlag(piece.game, encoded);
     }
 
-    // detect illegal moves that lead to uncertain states
-    public boolean isKingCapture(){
-        return isCapture && capturedPiece instanceof King;
+    public boolean isCastle(){
+        return MoveEncoding.isCastle(encoded);
     }
 
-    public boolean isCastle(){
-        return isShortCastle || isLongCastle;
+    public boolean isShortCastle(){
+        return MoveEncoding.isShortCastle(encoded);
+    }
+
+    public boolean isLongCastle(){
+        return MoveEncoding.isLongCastle(encoded);
     }
 
     public boolean isCapture(){
-        return isCapture;
+        return MoveEncoding.isCapture(encoded);
     }
 
     public boolean isCheck(){
-        return isCheck;
+        return MoveEncoding.isCheck(encoded);
     }
 
     public boolean isEnPassantCapture(){
-        return isEnPassantCapture;
+        return MoveEncoding.isEnPassant(encoded);
     }
 
     public boolean isPromotion(){
-        return isPromotion;
-    }
-
-    public Piece getPromotedTo(){
-        return promotedTo;
-    }
-
-    public Piece getCapturedPiece(){
-        return capturedPiece;
+        return MoveEncoding.isPromotion(encoded);
     }
 
     public boolean matchesWith(String s){
-        return isShortCastle && s.equals("O-O")
-                || isLongCastle && s.equals("O-O-O")
-                || (matchesWithPiece(s) && matchesWithEndingPosition(s) && matchesWithCapture(s));
+        return isShortCastle() && s.equals("O-O")
+                || isLongCastle() && s.equals("O-O-O")
+                || (matchesWithPiece(s) && matchesWithEndingPosition(s) && matchesWithCapture(s) && matchesWithPromotion(s));
     }
 
     public boolean matchesWithPiece(String s){
@@ -131,12 +106,17 @@ public class Move {
         return col == endingPosition[0] && row == endingPosition[1];
     }
 
-    public void markAsCheck(){
-        isCheck = true;
+    public boolean matchesWithCapture(String s){
+        return isCapture() == s.contains("x");
     }
 
-    public boolean matchesWithCapture(String s){
-        return isCapture == s.contains("x");
+    // e8=Q and e8=N are different moves (a missing piece letter means queen)
+    public boolean matchesWithPromotion(String s){
+        if(!isPromotion()){
+            return !s.contains("=");
+        }
+        String promotedTo = MoveEncoding.toSAN(encoded).split("=")[1].substring(0, 1);
+        return s.contains("=") ? s.contains("=" + promotedTo) : promotedTo.equals("Q");
     }
 
     public boolean departureFromFile(char file){
@@ -147,62 +127,7 @@ public class Move {
         return piece.y == (7 - (rank - '1'));
     }
 
-    // SAN = short algebraic notation
-    // TODO: disambiguate like in PGN
     public String asSAN(){
-        if(isShortCastle){
-            return "0-0";
-        }
-        else if(isLongCastle){
-            return "0-0-0";
-        }
-        String destinationString = coordsToString(endingPosition);
-        // promotion can also be capture but we won't make it too confusing
-        String res;
-        if(isPromotion){
-            res = destinationString + "=" + pieceToSAN(getPromotedTo());
-        }
-        else if(isCapture){
-            res = pieceToSAN(piece) + "x" + destinationString;
-            if(piece instanceof Pawn){
-                res = toLetter(startingPosition[0]) + res;
-            }
-        }
-        // a simple piece move
-        else{
-            res = pieceToSAN(piece) + destinationString;
-        }
-        if(isCheck){
-            res += "+";
-        }
-        return res;
-    }
-
-    public String coordsToString(int[] coords){
-        return toLetter(coords[0]) + "" + toChessRow(coords[1]);
-    }
-
-    private String pieceToSAN(Piece piece){
-        if(piece instanceof Pawn){
-            return "";
-        }
-        else if(piece instanceof Rook){
-            return "R";
-        }
-        else if(piece instanceof Knight){
-            return "N";
-        }
-        else if(piece instanceof Bishop){
-            return "B";
-        }
-        else if(piece instanceof Queen){
-            return "Q";
-        }
-        else if(piece instanceof King){
-            return "K";
-        }
-        else{
-            throw new RuntimeException("Piece unknown!");
-        }
+        return MoveEncoding.toSAN(encoded);
     }
 }
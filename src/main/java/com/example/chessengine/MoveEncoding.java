@@ -0,0 +1,151 @@
+package com.example.chessengine;
+
+// a move packed into a single int, this is what the generator and the search work with
+// Move objects are only created for the GUI and for PGN loading
+//
+//  bits  0- 5  from square
+//  bits  6-11  to square
+//  bits 12-15  moved piece (piece index of BitboardPosition)
+//  bits 16-19  captured piece (only valid with the capture flag)
+//  bits 20-23  piece promoted to (only valid with the promotion flag)
+//  bits 24-30  flags
+public class MoveEncoding {
+
+    static final int NO_MOVE = 0;
+
+    static final int CAPTURE = 1 << 24;
+    static final int EN_PASSANT = 1 << 25;
+    static final int DOUBLE_PAWN_PUSH = 1 << 26;
+    static final int SHORT_CASTLE = 1 << 27;
+    static final int LONG_CASTLE = 1 << 28;
+    static final int PROMOTION = 1 << 29;
+    static final int CHECK = 1 << 30;
+
+    // everything that identifies a move in a position (flags like check are left out)
+    private static final int IDENTITY_MASK = 0xFFF | (0xF << 20) | PROMOTION;
+
+    static int encode(int from, int to, int piece){
+        return from | (to << 6) | (piece << 12);
+    }
+
+    static int encodeCapture(int from, int to, int piece, int capturedPiece){
+        return encode(from, to, piece) | (capturedPiece << 16) | CAPTURE;
+    }
+
+    static int withPromotion(int move, int promotedTo){
+        return (move & ~(0xF << 20)) | (promotedTo << 20) | PROMOTION;
+    }
+
+    static int getFrom(int move){
+        return move & 0x3F;
+    }
+
+    static int getTo(int move){
+        return (move >>> 6) & 0x3F;
+    }
+
+    static int getPiece(int move){
+        return (move >>> 12) & 0xF;
+    }
+
+    static int getCapturedPiece(int move){
+        return (move >>> 16) & 0xF;
+    }
+
+    static int getPromotedTo(int move){
+        return (move >>> 20) & 0xF;
+    }
+
+    static boolean isCapture(int move){
+        return (move & CAPTURE) != 0;
+    }
+
+    static boolean isEnPassant(int move){
+        return (move & EN_PASSANT) != 0;
+    }
+
+    static boolean isDoublePawnPush(int move){
+        return (move & DOUBLE_PAWN_PUSH) != 0;
+    }
+
+    static boolean isShortCastle(int move){
+        return (move & SHORT_CASTLE) != 0;
+    }
+
+    static boolean isLongCastle(int move){
+        return (move & LONG_CASTLE) != 0;
+    }
+
+    static boolean isCastle(int move){
+        return (move & (SHORT_CASTLE | LONG_CASTLE)) != 0;
+    }
+
+    static boolean isPromotion(int move){
+        return (move & PROMOTION) != 0;
+    }
+
+    static boolean isCheck(int move){
+        return (move & CHECK) != 0;
+    }
+
+    // same from, to and promotion (the check flag might differ between move generators)
+    static boolean isSameMove(int move, int other){
+        return (move & IDENTITY_MASK) == (other & IDENTITY_MASK);
+    }
+
+    static String squareToString(int square){
+        return (char)('a' + BitboardPosition.xOf(square)) + "" + (8 - BitboardPosition.yOf(square));
+    }
+
+    // long algebraic notation like e2e4 or e7e8q (perft divide output)
+    static String toUCI(int move){
+        String res = squareToString(getFrom(move)) + squareToString(getTo(move));
+        if(isPromotion(move)){
+            res += pieceToSAN(getPromotedTo(move)).toLowerCase();
+        }
+        return res;
+    }
+
+    // SAN = short algebraic notation
+    // TODO: disambiguate like in PGN
+    static String toSAN(int move){
+        if(isShortCastle(move)){
+            return "0-0";
+        }
+        else if(isLongCastle(move)){
+            return "0-0-0";
+        }
+        String destinationString = squareToString(getTo(move));
+        // promotion can also be capture but we won't make it too confusing
+        String res;
+        if(isPromotion(move)){
+            res = destinationString + "=" + pieceToSAN(getPromotedTo(move));
+        }
+        else if(isCapture(move)){
+            res = pieceToSAN(getPiece(move)) + "x" + destinationString;
+            if(BitboardPosition.typeOf(getPiece(move)) == BitboardPosition.PAWN){
+                res = (char)('a' + BitboardPosition.xOf(getFrom(move))) + res;
+            }
+        }
+        // a simple piece move
+        else{
+            res = pieceToSAN(getPiece(move)) + destinationString;
+        }
+        if(isCheck(move)){
+            res += "+";
+        }
+        return res;
+    }
+
+    private static String pieceToSAN(int piece){
+        return switch(BitboardPosition.typeOf(piece)){
+            case BitboardPosition.PAWN -> "";
+            case BitboardPosition.KNIGHT -> "N";
+            case BitboardPosition.BISHOP -> "B";
+            case BitboardPosition.ROOK -> "R";
+            case BitboardPosition.QUEEN -> "Q";
+            case BitboardPosition.KING -> "K";
+            default -> throw new RuntimeException("Piece unknown!");
+        };
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.chessengine;
+
+// move generation straight from the bitboards
+// moves are written into the given buffer starting at count, the new count is returned
+public class MoveGenerator {
+
+    // no legal chess position has more moves than that
+    static final int MAX_MOVES = 256;
+
+    // only legal moves, nothing has to be tried out on the board:
+    // - the king avoids attacked squares (including the ones behind him on the line of a sliding checker)
+    // - in check, the other pieces have to capture the checker or step in between (check mask)
+    // - pinned pieces stay on the line through their king and the pinner
+    static int generateLegalMoves(Game game, int[] moves, int count){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int them = 1 - us;
+        int kingSquare = game.getKingSquare(us);
+        long checkers = game.getCheckersBitboard();
+        long notOwnPieces = ~bitboards.occupancy[us];
+
+        long kingDanger = game.attackMaps.attacked[them] | game.getSquaresBehindKing(kingSquare, checkers);
+        count = addMoves(bitboards, moves, count, BitboardPosition.getPieceIndex(us, BitboardPosition.KING), kingSquare,
+                Attacks.KING_ATTACKS[kingSquare] & notOwnPieces & ~kingDanger, 0L);
+
+        // king can't castle through check, out of check
+        if(checkers == 0){
+            count = generateCastlingMoves(game, moves, count, kingDanger);
+        }
+
+        // in double check only the king can move
+        if(Long.bitCount(checkers) > 1){
+            return count;
+        }
+        // in single check we capture the checker or block the line between him and our king
+        long checkMask = checkers == 0 ? ~0L : checkers | Attacks.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+
+        return generatePieceMoves(game, moves, count, notOwnPieces & checkMask, game.getPinnedPiecesBitboard(), true, true);
+    }
+
+    // captures only, not checked for legality (a capture of the king means the previous move was illegal)
+    static int generatePseudoLegalCaptures(Game game, int[] moves, int count){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        long targets = bitboards.occupancy[1 - us];
+        int kingSquare = game.getKingSquare(us);
+
+        count = addMoves(bitboards, moves, count, BitboardPosition.getPieceIndex(us, BitboardPosition.KING), kingSquare,
+                Attacks.KING_ATTACKS[kingSquare] & targets, 0L);
+
+        return generatePieceMoves(game, moves, count, targets, 0L, false, false);
+    }
+
+    // everything except king moves
+    private static int generatePieceMoves(Game game, int[] moves, int count, long targets, long pinnedPieces, boolean quietMovesIncluded, boolean legal){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int kingSquare = game.getKingSquare(us);
+        int enemyKingSquare = game.getKingSquare(1 - us);
+
+        count = generatePawnMoves(game, moves, count, targets, pinnedPieces, quietMovesIncluded, legal);
+
+        for(int type = BitboardPosition.KNIGHT; type <= BitboardPosition.QUEEN; type++){
+            int piece = BitboardPosition.getPieceIndex(us, type);
+            long checkSquares = game.getCheckSquaresBitboard(type, enemyKingSquare, us);
+
+            for(long pieces = bitboards.pieces[piece]; pieces != 0; pieces &= pieces - 1){
+                int from = Long.numberOfTrailingZeros(pieces);
+                long destinations = Attacks.getAttacks(piece, from, bitboards.occupied) & targets;
+
+                if((pinnedPieces & (1L << from)) != 0){
+                    destinations &= Attacks.LINE[kingSquare][from];
+                }
+                count = addMoves(bitboards, moves, count, piece, from, destinations, checkSquares);
+            }
+        }
+        return count;
+    }
+
+    private static int addMoves(BitboardPosition bitboards, int[] moves, int count, int piece, int from, long destinations, long checkSquares){
+        for(; destinations != 0; destinations &= destinations - 1){
+            int to = Long.numberOfTrailingZeros(destinations);
+            int move = bitboards.isEmpty(to)
+                    ? MoveEncoding.encode(from, to, piece)
+                    : MoveEncoding.encodeCapture(from, to, piece, bitboards.getPieceOn(to));
+
+            moves[count++] = (checkSquares & (1L << to)) != 0 ? move | MoveEncoding.CHECK : move;
+        }
+        return count;
+    }
+
+    private static int generatePawnMoves(Game game, int[] moves, int count, long targets, long pinnedPieces, boolean quietMovesIncluded, boolean legal){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int them = 1 - us;
+        int piece = BitboardPosition.getPieceIndex(us, BitboardPosition.PAWN);
+        int kingSquare = game.getKingSquare(us);
+
+        // white pawns move up the board
+        int forward = us == BitboardPosition.WHITE ? -8 : 8;
+        int startingRank = us == BitboardPosition.WHITE ? 6 : 1;
+        int promotionRank = us == BitboardPosition.WHITE ? 0 : 7;
+
+        long checkSquares = game.getCheckSquaresBitboard(BitboardPosition.PAWN, game.getKingSquare(them), us);
+
+        for(long pawns = bitboards.pieces[piece]; pawns != 0; pawns &= pawns - 1){
+            int from = Long.numberOfTrailingZeros(pawns);
+            int oneStep = from + forward;
+            boolean promotes = BitboardPosition.yOf(oneStep) == promotionRank;
+
+            long allowed = targets;
+            if((pinnedPieces & (1L << from)) != 0){
+                allowed &= Attacks.LINE[kingSquare][from];
+            }
+
+            // twoStep should only be possible if one step also possible (can't jump over pieces)
+            if(bitboards.isEmpty(oneStep) && quietMovesIncluded){
+                if((allowed & (1L << oneStep)) != 0){
+                    count = addPawnMove(game, moves, count, MoveEncoding.encode(from, oneStep, piece), promotes, checkSquares, true);
+                }
+
+                int twoSteps = oneStep + forward;
+                if(BitboardPosition.yOf(from) == startingRank && bitboards.isEmpty(twoSteps) && (allowed & (1L << twoSteps)) != 0){
+                    count = addPawnMove(game, moves, count, MoveEncoding.encode(from, twoSteps, piece) | MoveEncoding.DOUBLE_PAWN_PUSH, false, checkSquares, true);
+                }
+            }
+
+            for(long captures = Attacks.PAWN_ATTACKS[us][from] & bitboards.occupancy[them] & allowed; captures != 0; captures &= captures - 1){
+                int to = Long.numberOfTrailingZeros(captures);
+                int move = MoveEncoding.encodeCapture(from, to, piece, bitboards.getPieceOn(to));
+                count = addPawnMove(game, moves, count, move, promotes, checkSquares, quietMovesIncluded);
+            }
+
+            // the captured pawn stands next to us, not on the destination square
+            if(game.enPassantEnabled && game.enPassantSquare != Game.NO_SQUARE
+                    && (Attacks.PAWN_ATTACKS[us][from] & (1L << game.enPassantSquare)) != 0){
+                int capturedPawn = BitboardPosition.getPieceIndex(them, BitboardPosition.PAWN);
+                int move = MoveEncoding.encodeCapture(from, game.enPassantSquare, piece, capturedPawn) | MoveEncoding.EN_PASSANT;
+
+                if(!legal || isLegalEnPassant(game, move)){
+                    count = addPawnMove(game, moves, count, move, false, checkSquares, true);
+                }
+            }
+        }
+        return count;
+    }
+
+    // two pawns leave the line at once (and the captured one may be the checker), so look at the board after the capture
+    private static boolean isLegalEnPassant(Game game, int move){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        long capturedPawn = 1L << Game.getEnPassantCaptureSquare(move);
+
+        long occupiedAfterwards = (bitboards.occupied & ~(1L << MoveEncoding.getFrom(move)) & ~capturedPawn) | (1L << MoveEncoding.getTo(move));
+        return (game.getAttackers(game.getKingSquare(us), 1 - us, occupiedAfterwards) & ~capturedPawn) == 0;
+    }
+
+    // a promotion is generated once per piece type (only the queen when underpromotions are not wanted)
+    private static int addPawnMove(Game game, int[] moves, int count, int move, boolean promotes, long checkSquares, boolean underpromotionsIncluded){
+        if(!promotes){
+            int to = MoveEncoding.getTo(move);
+            moves[count++] = (checkSquares & (1L << to)) != 0 ? move | MoveEncoding.CHECK : move;
+            return count;
+        }
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int lastType = underpromotionsIncluded ? BitboardPosition.KNIGHT : BitboardPosition.QUEEN;
+
+        for(int type = BitboardPosition.QUEEN; type >= lastType; type--){
+            moves[count++] = updateCheckFlag(game, MoveEncoding.withPromotion(move, BitboardPosition.getPieceIndex(us, type)));
+        }
+        return count;
+    }
+
+    // the king has to be on his starting square and may not pass an attacked square
+    private static int generateCastlingMoves(Game game, int[] moves, int count, long kingDanger){
+        BitboardPosition bitboards = game.bitboards;
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int king = BitboardPosition.getPieceIndex(us, BitboardPosition.KING);
+        int kingSquare = BitboardPosition.toSquare(4, us == BitboardPosition.WHITE ? 7 : 0);
+
+        if(bitboards.getPieceOn(kingSquare) != king){
+            return count;
+        }
+        if((game.castleRights & CastleRights.shortCastle(us)) != 0
+                && bitboards.isEmpty(kingSquare + 1)
+                && bitboards.isEmpty(kingSquare + 2)
+                && (kingDanger & ((1L << (kingSquare + 1)) | (1L << (kingSquare + 2)))) == 0){
+            moves[count++] = MoveEncoding.encode(kingSquare, kingSquare + 2, king) | MoveEncoding.SHORT_CASTLE;
+        }
+        if((game.castleRights & CastleRights.longCastle(us)) != 0
+                && bitboards.isEmpty(kingSquare - 1)
+                && bitboards.isEmpty(kingSquare - 2)
+                && bitboards.isEmpty(kingSquare - 3)
+                && (kingDanger & ((1L << (kingSquare - 1)) | (1L << (kingSquare - 2)))) == 0){
+            moves[count++] = MoveEncoding.encode(kingSquare, kingSquare - 2, king) | MoveEncoding.LONG_CASTLE;
+        }
+        return count;
+    }
+
+    // direct checks only, for promotions the new piece counts
+    static int updateCheckFlag(Game game, int move){
+        int us = BitboardPosition.colorIndex(game.whoseTurn);
+        int piece = MoveEncoding.isPromotion(move) ? MoveEncoding.getPromotedTo(move) : MoveEncoding.getPiece(move);
+        long checkSquares = game.getCheckSquaresBitboard(BitboardPosition.typeOf(piece), game.getKingSquare(1 - us), us);
+
+        move &= ~MoveEncoding.CHECK;
+        return (checkSquares & (1L << MoveEncoding.getTo(move))) != 0 ? move | MoveEncoding.CHECK : move;
+    }
+}
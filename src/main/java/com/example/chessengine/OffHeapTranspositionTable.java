@@ -0,0 +1,64 @@
+package com.example.chessengine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// transposition table in direct memory: tables of several GB don't grow the java heap and the GC never scans them
+// (the JVM only hands out as much direct memory as -XX:MaxDirectMemorySize allows, by default the max heap size)
+// a direct buffer holds at most 2GB, so the table is split into chunks of whole buckets
+// every chunk starts at a multiple of the alignment (e.g. 2MB so transparent huge pages can back it)
+public class OffHeapTranspositionTable extends TranspositionTable {
+
+    // 2^24 buckets (768MB) per chunk
+    private static final int BUCKETS_PER_CHUNK_SHIFT = 24;
+    private static final long BUCKETS_PER_CHUNK_MASK = (1L << BUCKETS_PER_CHUNK_SHIFT) - 1;
+    private static final int BYTES_PER_BUCKET = 8 * LONGS_PER_BUCKET;
+
+    // opaque access: a long is never torn, no ordering between entries needed (the xor check covers that)
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+
+    public OffHeapTranspositionTable(int sizeInMB, int alignmentInKB){
+        super(sizeInMB, Long.MAX_VALUE);
+
+        int alignment = Integer.highestOneBit(Math.max(8, alignmentInKB * 1024));
+        long bucketsPerChunk = Math.min(getNumberOfBuckets(), 1L << BUCKETS_PER_CHUNK_SHIFT);
+        int bytesPerChunk = (int) bucketsPerChunk * BYTES_PER_BUCKET;
+
+        chunks = new ByteBuffer[(int) (getNumberOfBuckets() / bucketsPerChunk)];
+        for(int i = 0; i < chunks.length; i++){
+            // allocate a bit more so the aligned part is still big enough
+            chunks[i] = ByteBuffer.allocateDirect(bytesPerChunk + alignment)
+                    .alignedSlice(alignment)
+                    .limit(bytesPerChunk)
+                    .slice()
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    @Override
+    long read(long bucket, int offset){
+        return (long) LONGS.getOpaque(chunks[(int) (bucket >>> BUCKETS_PER_CHUNK_SHIFT)], getByteOffset(bucket, offset));
+    }
+
+    @Override
+    void write(long bucket, int offset, long value){
+        LONGS.setOpaque(chunks[(int) (bucket >>> BUCKETS_PER_CHUNK_SHIFT)], getByteOffset(bucket, offset), value);
+    }
+
+    @Override
+    void clear(){
+        for(ByteBuffer chunk : chunks){
+            for(int i = 0; i < chunk.capacity(); i += 8){
+                chunk.putLong(i, 0L);
+            }
+        }
+    }
+
+    private static int getByteOffset(long bucket, int offset){
+        return (int) (bucket & BUCKETS_PER_CHUNK_MASK) * BYTES_PER_BUCKET + 8 * offset;
+    }
+}
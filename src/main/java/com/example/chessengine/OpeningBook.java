@@ -31,12 +31,13 @@ public class OpeningBook {
         random.setSeed(randomSeed);
 
         // reject request to opening book
-        int numberOfMovesPlayed = game.history.size();
+        List<String> history = game.getHistory();
+        int numberOfMovesPlayed = history.size();
 
         if(numberOfMovesPlayed > maxNumberOfMovesFromBook){
             return null;
         }
-        String gameString = getGameString(game);
+        String gameString = getGameString(history);
         Set<String> gamesWithPrefix = new TreeSet<>();
 
         for(String s : games){
@@ -66,9 +67,9 @@ public class OpeningBook {
         return candidates.get(randomIndex);
     }
 
-    private String getGameString(Game game){
+    private String getGameString(List<String> history){
         StringBuilder res = new StringBuilder();
-        for(String s : game.history){
+        for(String s : history){
             res.append(s).append(" ");
         }
         return res.toString();
@@ -0,0 +1,148 @@
+package com.example.chessengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// perft on all cores: the first plies are split into fork-join tasks, each task counts its subtree on its own game copy
+// arguments: [fen] [depth] [perft hash size in MB, 0 = no hash]
+// runs with 1, 2, 4, ... threads and reports how nodes/s scale
+public class ParallelPerft {
+
+    // tasks are created for the moves of the first plies, below that a task counts sequentially
+    static final int SPLIT_PLIES = 2;
+
+    private final ForkJoinPool pool;
+    // null if disabled
+    private final PerftHash perftHash;
+
+    public ParallelPerft(int numberOfThreads, PerftHash perftHash){
+        this.pool = new ForkJoinPool(numberOfThreads);
+        this.perftHash = perftHash;
+    }
+
+    long perft(Game game, int depth){
+        return pool.invoke(new PerftTask(new Game(game), depth, 0));
+    }
+
+    void shutdown(){
+        pool.shutdown();
+    }
+
+    // fork/join tasks are serializable, these never get serialized
+    @SuppressWarnings("serial")
+    private class PerftTask extends RecursiveTask<Long> {
+
+        private final Game game;
+        private final int depth;
+        private final int ply;
+
+        PerftTask(Game game, int depth, int ply){
+            this.game = game;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute(){
+            if(depth <= 1 || ply >= SPLIT_PLIES){
+                return perft(game, depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int numberOfMoves = MoveGenerator.generateLegalMoves(game, moves, 0);
+
+            List<PerftTask> subtasks = new ArrayList<>(numberOfMoves);
+            for(int i = 0; i < numberOfMoves; i++){
+                Game gameAfterMove = new Game(game);
+                gameAfterMove.makeMove(moves[i]);
+                gameAfterMove.outcome = Outcome.Open;
+                subtasks.add(new PerftTask(gameAfterMove, depth - 1, ply + 1));
+            }
+            invokeAll(subtasks);
+
+            long nodes = 0;
+            for(PerftTask subtask : subtasks){
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+
+    // same as Game.perft, but subtrees are looked up in and stored to the perft hash
+    private long perft(Game game, int depth, int[][] moveBuffers){
+        if(depth == 0){
+            return 1;
+        }
+        boolean useHash = perftHash != null && depth >= 2;
+        long key = game.getKey();
+        if(useHash){
+            long storedNodes = perftHash.get(key, depth);
+            if(storedNodes >= 0){
+                return storedNodes;
+            }
+        }
+
+        int[] moves = moveBuffers[depth];
+        int numberOfMoves = MoveGenerator.generateLegalMoves(game, moves, 0);
+
+        // bulk counting
+        if(depth == 1){
+            return numberOfMoves;
+        }
+        long nodes = 0;
+        for(int i = 0; i < numberOfMoves; i++){
+            game.makeMove(moves[i]);
+            game.outcome = Outcome.Open;
+            nodes += perft(game, depth - 1, moveBuffers);
+            game.undoMove();
+        }
+
+        if(useHash){
+            perftHash.put(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args){
+        String fen = args.length > 0 ? args[0] : Game.STARTING_POSITION_FEN;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int hashSizeInMB = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        Game game = new Game();
+        game.loadFromFEN(fen);
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long nodesOneThread = 0;
+        double secondsOneThread = 0;
+
+        for(int numberOfThreads = 1; numberOfThreads <= maxThreads; numberOfThreads = nextThreadCount(numberOfThreads, maxThreads)){
+            // fresh hash per run, otherwise later runs would only read the results of the first one
+            PerftHash perftHash = hashSizeInMB > 0 ? new PerftHash(hashSizeInMB) : null;
+            ParallelPerft parallelPerft = new ParallelPerft(numberOfThreads, perftHash);
+
+            long start = System.nanoTime();
+            long nodes = parallelPerft.perft(game, depth);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            parallelPerft.shutdown();
+
+            if(numberOfThreads == 1){
+                nodesOneThread = nodes;
+                secondsOneThread = seconds;
+            }
+            else if(nodes != nodesOneThread){
+                throw new RuntimeException("ERROR: " + numberOfThreads + " threads counted " + nodes + " nodes instead of " + nodesOneThread + "!");
+            }
+            System.out.printf("%2d threads: %d nodes in %.2fs, %d nodes/s, speedup %.2f%n",
+                    numberOfThreads, nodes, seconds, (long) (nodes / seconds), secondsOneThread / seconds);
+        }
+    }
+
+    // 1, 2, 4, ... and the number of cores at the end
+    private static int nextThreadCount(int numberOfThreads, int maxThreads){
+        if(numberOfThreads == maxThreads){
+            return maxThreads + 1;
+        }
+        return Math.min(2 * numberOfThreads, maxThreads);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.chessengine;
+
+// how the search uses more than one thread
+public enum ParallelSearchMethod {
+    // helpers search the same position, they only share the transposition table
+    LazySMP,
+    // the root moves after the first one are split over the threads (deterministic only with EngineSettings.deterministicRootSplitEnabled)
+    RootSplit,
+    // young brothers wait: idle threads join a node once its eldest child is searched
+    YoungBrothersWait
+}
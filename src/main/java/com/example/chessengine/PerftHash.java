@@ -0,0 +1,43 @@
+package com.example.chessengine;
+
+// node counts of already counted subtrees, shared by all perft threads without locks
+// every entry is two longs: (key ^ data) and data, with data = nodes << 8 | depth
+// a torn write (two threads writing the same entry) breaks the xor, so the entry just looks empty
+public class PerftHash {
+
+    private final long[] entries;
+    private final int mask;
+
+    // size is rounded down to a power of two number of entries
+    public PerftHash(int sizeInMB){
+        long numberOfEntries = Long.highestOneBit(Math.max(1L, (long) sizeInMB * 1024 * 1024 / 16));
+        numberOfEntries = Math.min(numberOfEntries, 1L << 29);
+        entries = new long[(int) (2 * numberOfEntries)];
+        mask = (int) numberOfEntries - 1;
+    }
+
+    // -1 if the subtree isn't stored
+    long get(long key, int depth){
+        int index = getIndex(key, depth);
+        long data = entries[index + 1];
+        long check = entries[index];
+
+        if((check ^ data) == key && (int) (data & 0xFF) == depth){
+            return data >>> 8;
+        }
+        return -1;
+    }
+
+    // always replace
+    void put(long key, int depth, long nodes){
+        int index = getIndex(key, depth);
+        long data = nodes << 8 | depth;
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    // the same position is stored at different places for different depths
+    private int getIndex(long key, int depth){
+        return 2 * (int) ((key ^ (depth * 0x9E3779B97F4A7C15L)) & mask);
+    }
+}
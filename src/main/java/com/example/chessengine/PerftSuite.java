@@ -0,0 +1,99 @@
+package com.example.chessengine;
+
+import java.util.Map;
+
+// move generator regression test and benchmark (headless)
+// no arguments: runs all positions below and compares the node counts
+// <fen> <depth>: prints the divide output of that position
+public class PerftSuite {
+
+    // fen, depth, expected number of nodes (from chessprogramming.org and talkchess)
+    static final String[][] POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "5", "4865609"},
+            // kiwipete
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+            // illegal en passant (capturing would expose the king)
+            {"3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", "6", "1134888"},
+            {"8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", "6", "1015133"},
+            // en passant capture gives check
+            {"8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", "6", "1440467"},
+            // castling gives check
+            {"5k2/8/8/8/8/8/8/4K2R w K - 0 1", "6", "661072"},
+            {"3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", "6", "803711"},
+            // castling rights lost by rook captures, castling through attacked squares
+            {"r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", "4", "1274206"},
+            {"r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", "4", "1720476"},
+            // promotions out of and into check
+            {"2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", "6", "3821001"},
+            {"8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", "5", "1004658"},
+            {"4k3/1P6/8/8/8/8/K7/8 w - - 0 1", "6", "217342"},
+            {"8/P1k5/K7/8/8/8/8/8 w - - 0 1", "6", "92683"},
+            // stalemate and checkmate
+            {"K1k5/8/P7/8/8/8/8/8 w - - 0 1", "6", "2217"},
+            {"8/k1P5/8/1K6/8/8/8/8 w - - 0 1", "7", "567584"},
+            {"8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", "4", "23527"},
+    };
+
+    public static void main(String[] args){
+        if(args.length == 2){
+            divide(args[0], Integer.parseInt(args[1]));
+            return;
+        }
+
+        Game game = new Game();
+        long totalNodes = 0;
+        long totalNanos = 0;
+        int failures = 0;
+
+        for(String[] position : POSITIONS){
+            game.loadFromFEN(position[0]);
+            int depth = Integer.parseInt(position[1]);
+            long expectedNodes = Long.parseLong(position[2]);
+
+            long start = System.nanoTime();
+            long nodes = game.perft(depth);
+            long nanos = System.nanoTime() - start;
+
+            totalNodes += nodes;
+            totalNanos += nanos;
+
+            boolean passed = nodes == expectedNodes;
+            if(!passed){
+                failures++;
+            }
+            System.out.printf("%s %s depth %d: %d nodes (expected %d), %d nodes/s%n",
+                    passed ? "OK  " : "FAIL", position[0], depth, nodes, expectedNodes, nodesPerSecond(nodes, nanos));
+        }
+
+        System.out.printf("%d/%d positions passed, %d nodes, %d nodes/s%n",
+                POSITIONS.length - failures, POSITIONS.length, totalNodes, nodesPerSecond(totalNodes, totalNanos));
+
+        if(failures > 0){
+            System.exit(1);
+        }
+    }
+
+    static void divide(String fen, int depth){
+        Game game = new Game();
+        game.loadFromFEN(fen);
+
+        long start = System.nanoTime();
+        Map<String, Long> nodesPerMove = game.divide(depth);
+        long nanos = System.nanoTime() - start;
+
+        long nodes = 0;
+        for(Map.Entry<String, Long> entry : nodesPerMove.entrySet()){
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.printf("%nmoves: %d, nodes: %d, %d nodes/s%n", nodesPerMove.size(), nodes, nodesPerSecond(nodes, nanos));
+    }
+
+    static long nodesPerSecond(long nodes, long nanos){
+        return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.chessengine;
 
-import java.util.List;
+import java.util.HashSet;
 import java.util.Set;
 
+// view object for the GUI, the engine itself works on the bitboards
 public abstract class Piece {
     PieceColor color;
     Game game;
@@ -10,35 +11,30 @@ public abstract class Piece {
     int[] position;
     int x, y;
 
-    int recentNumberOfPossibleMoves;
-
-    // caching for attack squares
-    Square cachedOn;
-    Set<Square> cachedAttackSquares;
-
     public Piece(PieceColor color, int x, int y, Game game){
         this.color = color;
         this.game = game;
         position = new int[]{x, y};
         this.x = x;
         this.y = y;
-        recentNumberOfPossibleMoves = 0;
     }
-    // copy constructor
-    // find yourself on the board
-    public abstract List<Move> getPossibleMoves();
 
-    public abstract Set<Square> getAttackedSquares(boolean needsRecalculation);
+    // table lookup for the squares this piece attacks given the occupancy
+    public abstract long getAttacks(long occupied);
 
-    public void setRecentNumberOfPossibleMoves(int n){
-        recentNumberOfPossibleMoves = n;
-    }
-    public int getRecentNumberOfPossibleMoves(){
-        return recentNumberOfPossibleMoves;
-    }
-    public void incrementRecentNumberOfPossibleMoves(){
-        recentNumberOfPossibleMoves += 1;
+    // sliding pieces look through the enemy king (so the king can't step back along the ray)
+    public Set<Square> getAttackedSquares(){
+        long enemyKing = game.bitboards.getPieces(BitboardPosition.colorIndex(color.getOppositeColor()), BitboardPosition.KING);
+        long attacks = getAttacks(game.bitboards.occupied & ~enemyKing);
+
+        Set<Square> attackedSquares = new HashSet<>();
+        for(; attacks != 0; attacks &= attacks - 1){
+            int square = Long.numberOfTrailingZeros(attacks);
+            attackedSquares.add(new Square(BitboardPosition.xOf(square), BitboardPosition.yOf(square), this));
+        }
+        return attackedSquares;
     }
+
     @Override
     public abstract String toString();
 
@@ -56,4 +52,8 @@ public abstract class Piece {
     public Square getCurrentSquare(){
         return new Square(x, y);
     }
+
+    public int getSquare(){
+        return BitboardPosition.toSquare(x, y);
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.chessengine;
+
+// a small table of one search thread in front of the shared one: probes fall back to the shared table,
+// stores only go to this one (so other threads never see what this thread found and the reverse)
+public class PrivateTranspositionTable extends HeapTranspositionTable {
+
+    private final TranspositionTable sharedTable;
+
+    public PrivateTranspositionTable(int sizeInMB, TranspositionTable sharedTable){
+        super(sizeInMB);
+        this.sharedTable = sharedTable;
+    }
+
+    @Override
+    boolean probe(long key, Entry entry){
+        return super.probe(key, entry) || sharedTable.probe(key, entry);
+    }
+}
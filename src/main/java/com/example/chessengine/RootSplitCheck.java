@@ -0,0 +1,103 @@
+package com.example.chessengine;
+
+// root split regression test (headless)
+// every root search has to come back with a move it searched and that move's variation,
+// also when the first move fails high against a narrow negative window (aspiration after a bad score)
+public class RootSplitCheck {
+
+    // alpha, beta in centipawns
+    static final int[][] WINDOWS = {
+            {-500, -400},
+            {-60, -50},
+            {-EvaluationMethod.INFINITE_SCORE, EvaluationMethod.INFINITE_SCORE},
+            {400, 500},
+    };
+
+    // the side to move is worse, the scores of the last depth are below -window
+    static final String[] LOSING_POSITIONS = {
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/4P3/8/PPPP1PPP/RNBQKB1R w KQkq - 0 1",
+            "1r2k3/8/8/8/8/8/3PPP2/4K3 w - - 0 1",
+    };
+
+    static final int MAX_DEPTH = 4;
+
+    public static void main(String[] args){
+        EngineSettings engineSettings = new EngineSettings();
+        engineSettings.openingBookEnabled = false;
+        engineSettings.maxSecondsToRespond = Integer.MAX_VALUE;
+        engineSettings.numberOfThreads = 2;
+        engineSettings.parallelSearchMethod = ParallelSearchMethod.RootSplit;
+
+        int checks = 0;
+        int failures = 0;
+
+        for(String fen : SearchBench.POSITIONS){
+            for(int[] window : WINDOWS){
+                for(int depth = 1; depth <= MAX_DEPTH; depth++){
+                    checks++;
+                    String error = checkRootSearch(engineSettings, fen, window[0], window[1], depth);
+                    if(error != null){
+                        failures++;
+                        System.out.printf("FAIL %s window [%d, %d] depth %d: %s%n", fen, window[0], window[1], depth, error);
+                    }
+                }
+            }
+        }
+
+        // the same through iterative deepening, with a window that fails all the time
+        engineSettings.aspirationWindowInCentipawns = 10;
+        for(String fen : LOSING_POSITIONS){
+            checks++;
+            Game game = new Game();
+            game.loadFromFEN(fen);
+            Minimax minimax = new Minimax(engineSettings, game, null, TranspositionTable.create(engineSettings),
+                    m -> null, new FeatureBasedEvaluationMethod());
+            minimax.depthLimit = MAX_DEPTH + 2;
+            try {
+                minimax.run();
+                System.out.printf("OK   %s depth %d: %s %s%n", fen, minimax.searchDepthReached,
+                        MoveEncoding.toSAN(minimax.bestMoveAcrossDepths), EvaluationMethod.scoreToString(minimax.bestValueAcrossDepths));
+            } catch (RuntimeException e) {
+                failures++;
+                System.out.printf("FAIL %s: %s%n", fen, e);
+            }
+        }
+
+        System.out.printf("%d/%d checks passed%n", checks - failures, checks);
+
+        if(failures > 0){
+            System.exit(1);
+        }
+    }
+
+    // null if the result is fine
+    static String checkRootSearch(EngineSettings engineSettings, String fen, int alpha, int beta, int depth){
+        Game game = new Game();
+        game.loadFromFEN(fen);
+        Minimax minimax = new Minimax(engineSettings, game, null, TranspositionTable.create(engineSettings),
+                m -> null, new FeatureBasedEvaluationMethod());
+        minimax.start = System.currentTimeMillis();
+        minimax.rootPly = game.undoStack.size;
+        minimax.searchDepthReached = depth - 1;
+        minimax.startRootWorkers();
+
+        try {
+            int[] moves = minimax.moveBuffers[0];
+            int numberOfMoves = game.generateLegalMoves(moves, 0);
+            int color = game.whoseTurn == PieceColor.White ? 1 : -1;
+            int bestIndex = minimax.searchRootMovesInParallel(moves, numberOfMoves, color, alpha, beta);
+
+            if(minimax.rootScores[bestIndex] == -EvaluationMethod.INFINITE_SCORE){
+                return "picked " + MoveEncoding.toUCI(moves[bestIndex]) + " without a score";
+            }
+            if(minimax.principalVariationLengths[0] == 0 || minimax.principalVariations[0][0] != moves[bestIndex]){
+                return "variation doesn't start with " + MoveEncoding.toUCI(moves[bestIndex]);
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return e.toString();
+        } finally {
+            minimax.stopHelpers();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.chessengine;
+
+import java.lang.reflect.Field;
+
+// fixed depth search over a set of positions, to compare node counts of search features (headless)
+// arguments: [depth] [setting=value ...], e.g. "5 principalVariationSearchEnabled=false"
+// or "5 numberOfThreads=4 parallelSearchMethod=YoungBrothersWait"
+// (setting = any boolean, int or enum field of EngineSettings)
+public class SearchBench {
+
+    static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            // kiwipete
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 8",
+            "2r3k1/pp3ppp/2n1b3/3p4/3P4/2PB1N2/P4PPP/R5K1 b - - 0 20",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+    };
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        EngineSettings engineSettings = new EngineSettings();
+        engineSettings.openingBookEnabled = false;
+        engineSettings.maxSecondsToRespond = Integer.MAX_VALUE;
+        for(int i = 1; i < args.length; i++){
+            String[] setting = args[i].split("=");
+            Field field = EngineSettings.class.getDeclaredField(setting[0]);
+            if(field.getType() == boolean.class){
+                field.setBoolean(engineSettings, Boolean.parseBoolean(setting[1]));
+            }
+            else if(field.getType() == int.class){
+                field.setInt(engineSettings, Integer.parseInt(setting[1]));
+            }
+            else if(field.getType().isEnum()){
+                field.set(engineSettings, parseEnumConstant(field.getType(), setting[1]));
+            }
+            else{
+                throw new RuntimeException("ERROR: " + setting[0] + " is neither boolean, int nor enum!");
+            }
+        }
+
+        long totalNodes = 0;
+        long totalNanos = 0;
+
+        for(String fen : POSITIONS){
+            Game game = new Game();
+            game.loadFromFEN(fen);
+
+            // every position starts with an empty table
+            Minimax minimax = new Minimax(engineSettings, game, null, TranspositionTable.create(engineSettings),
+                    m -> null, new FeatureBasedEvaluationMethod());
+            minimax.depthLimit = depth;
+
+            long start = System.nanoTime();
+            minimax.run();
+            long nanos = System.nanoTime() - start;
+
+            int nodes = minimax.getTotalNumberPositionsEvaluated();
+            totalNodes += nodes;
+            totalNanos += nanos;
+
+            System.out.printf("%s depth %d: %s %s, %d nodes, %d ms%n", fen, minimax.searchDepthReached,
+                    MoveEncoding.toSAN(minimax.bestMoveAcrossDepths), EvaluationMethod.scoreToString(minimax.bestValueAcrossDepths),
+                    nodes, nanos / 1_000_000);
+        }
+
+        System.out.printf("total: %d nodes, %d ms, %d nodes/s%n", totalNodes, totalNanos / 1_000_000,
+                PerftSuite.nodesPerSecond(totalNodes, totalNanos));
+    }
+
+    // e.g. YoungBrothersWait for a ParallelSearchMethod
+    private static Object parseEnumConstant(Class<?> type, String name){
+        for(Object constant : type.getEnumConstants()){
+            if(((Enum<?>) constant).name().equals(name)){
+                return constant;
+            }
+        }
+        throw new RuntimeException("ERROR: " + name + " is no " + type.getSimpleName() + "!");
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.chessengine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a node whose remaining moves are searched by several threads (young brothers wait concept)
+// the thread that created it (master) and its helpers take the moves one by one and share alpha
+// a cutoff cancels everything below it: every thread checks its split point and the ones above
+public class SplitPoint {
+
+    final SplitPoint parent;
+
+    // owned by the master, not changed while the split point is active
+    final int[] moves;
+    final int numberOfMoves;
+    final AtomicInteger nextMoveIndex;
+
+    final int beta;
+    final int depth;
+    final int color;
+    final int ply;
+
+    // changed under the lock, read without it to get the newest window
+    volatile int alpha;
+    volatile boolean cutoff;
+
+    // best move so far and the line after it
+    int bestMove = MoveEncoding.NO_MOVE;
+    int[] bestLine = new int[0];
+    boolean[] bestLineIsQuiescence = new boolean[0];
+
+    private int numberOfActiveHelpers;
+
+    public SplitPoint(SplitPoint parent, int[] moves, int firstMoveIndex, int numberOfMoves,
+                      int alpha, int beta, int depth, int color, int ply){
+        this.parent = parent;
+        this.moves = moves;
+        this.numberOfMoves = numberOfMoves;
+        this.nextMoveIndex = new AtomicInteger(firstMoveIndex);
+        this.alpha = alpha;
+        this.beta = beta;
+        this.depth = depth;
+        this.color = color;
+        this.ply = ply;
+    }
+
+    boolean isCancelled(){
+        for(SplitPoint splitPoint = this; splitPoint != null; splitPoint = splitPoint.parent){
+            if(splitPoint.cutoff){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // index of the next move to search, numberOfMoves when all are taken
+    int takeNextMoveIndex(){
+        return Math.min(nextMoveIndex.getAndIncrement(), numberOfMoves);
+    }
+
+    synchronized void update(int move, int score, int[] line, boolean[] lineIsQuiescence, int lineLength){
+        if(cutoff){
+            return;
+        }
+        if(score >= beta){
+            bestMove = move;
+            cutoff = true;
+        }
+        else if(score > alpha){
+            alpha = score;
+            bestMove = move;
+            bestLine = Arrays.copyOf(line, lineLength);
+            bestLineIsQuiescence = Arrays.copyOf(lineIsQuiescence, lineLength);
+        }
+    }
+
+    synchronized void helperJoined(){
+        numberOfActiveHelpers++;
+    }
+
+    synchronized void helperFinished(){
+        numberOfActiveHelpers--;
+        notifyAll();
+    }
+
+    // the master can only return from the node when every helper is out of it
+    synchronized void waitForHelpers() throws InterruptedException {
+        while(numberOfActiveHelpers > 0){
+            wait();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.chessengine;
+
+// static exchange evaluation: what a move wins or loses on its destination square if both sides keep
+// recapturing with their least valuable attacker (and may stop whenever going on would lose more)
+// sliders behind the pieces that already captured join in (x-rays), pins are ignored
+public class StaticExchangeEvaluation {
+
+    // in centipawns, a king is never given away (capturing into an attacked square loses everything)
+    static final int[] VALUES = {100, 300, 300, 500, 900, 20000};
+
+    // a capture can't be longer than the number of pieces on the board
+    static final int MAX_EXCHANGE_LENGTH = 34;
+
+    // gain of the side making the move, works for quiet moves too (the moved piece may get captured)
+    // gain has to hold MAX_EXCHANGE_LENGTH entries (owned by the caller, so the search doesn't allocate)
+    static int evaluate(Game game, int move, int[] gain){
+        BitboardPosition bitboards = game.bitboards;
+        int from = MoveEncoding.getFrom(move);
+        int to = MoveEncoding.getTo(move);
+        int piece = MoveEncoding.getPiece(move);
+
+        long occupied = bitboards.occupied;
+        int pieceOnSquare = BitboardPosition.typeOf(piece);
+
+        gain[0] = MoveEncoding.isCapture(move) ? VALUES[BitboardPosition.typeOf(MoveEncoding.getCapturedPiece(move))] : 0;
+        if(MoveEncoding.isEnPassant(move)){
+            occupied &= ~(1L << Game.getEnPassantCaptureSquare(move));
+        }
+        if(MoveEncoding.isPromotion(move)){
+            pieceOnSquare = BitboardPosition.typeOf(MoveEncoding.getPromotedTo(move));
+            gain[0] += VALUES[pieceOnSquare] - VALUES[BitboardPosition.PAWN];
+        }
+
+        long bishopsAndQueens = bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.BISHOP) | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.BISHOP)
+                | bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.QUEEN) | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.QUEEN);
+        long rooksAndQueens = bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.ROOK) | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.ROOK)
+                | bitboards.getPieces(BitboardPosition.WHITE, BitboardPosition.QUEEN) | bitboards.getPieces(BitboardPosition.BLACK, BitboardPosition.QUEEN);
+
+        occupied &= ~(1L << from);
+        long attackers = (game.getAttackers(to, BitboardPosition.WHITE, occupied) | game.getAttackers(to, BitboardPosition.BLACK, occupied)) & occupied;
+        int side = 1 - BitboardPosition.colorOf(piece);
+        int depth = 0;
+
+        while(true){
+            // least valuable attacker of the side to recapture
+            long attacker = 0;
+            int attackerType = BitboardPosition.PAWN;
+            for(; attackerType <= BitboardPosition.KING; attackerType++){
+                attacker = attackers & bitboards.getPieces(side, attackerType);
+                if(attacker != 0){
+                    break;
+                }
+            }
+            if(attacker == 0 || depth + 1 == MAX_EXCHANGE_LENGTH){
+                break;
+            }
+
+            depth++;
+            // the piece on the square gets captured, what the capturer gains if it is captured back
+            gain[depth] = VALUES[pieceOnSquare] - gain[depth - 1];
+
+            occupied &= ~(attacker & -attacker);
+            // x-rays: the sliders lined up behind the capturer
+            attackers |= (Attacks.bishopAttacks(to, occupied) & bishopsAndQueens) | (Attacks.rookAttacks(to, occupied) & rooksAndQueens);
+            attackers &= occupied;
+
+            pieceOnSquare = attackerType;
+            side = 1 - side;
+        }
+
+        // every side can stop capturing when that's better for it
+        while(depth > 0){
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.chessengine;
+
+// results of searched positions by zobrist key, fixed size (power of two number of buckets) so it never grows
+// a bucket holds two entries: the first one keeps the deepest search, the second one always takes the newest result
+// an entry is three longs: key ^ data ^ score, data (move | depth << 32 | bound << 40), score
+// the key is only stored xor-ed, a half written entry doesn't verify and looks empty (no locks between threads)
+// where the longs are kept is up to the subclasses (java heap or direct memory)
+public abstract class TranspositionTable {
+
+    // 0 = empty entry
+    static final int EXACT = 1, LOWER_BOUND = 2, UPPER_BOUND = 3;
+
+    static final int LONGS_PER_ENTRY = 3;
+    static final int LONGS_PER_BUCKET = 2 * LONGS_PER_ENTRY;
+
+    final int sizeInMB;
+    final long bucketMask;
+
+    // what probe found (every search thread has its own)
+    static class Entry {
+        int move;
+        int depth;
+        int bound;
+        // mates counted from the stored position, see scoreFromTable
+        int score;
+    }
+
+    protected TranspositionTable(int sizeInMB, long maxNumberOfBuckets){
+        this.sizeInMB = sizeInMB;
+        long numberOfBuckets = Long.highestOneBit(Math.max(1L, (long) sizeInMB * 1024 * 1024 / (8 * LONGS_PER_BUCKET)));
+        bucketMask = Math.min(numberOfBuckets, maxNumberOfBuckets) - 1;
+    }
+
+    static TranspositionTable create(EngineSettings engineSettings){
+        return create(engineSettings.offHeapTranspositionTableEnabled, engineSettings.transpositionTableSizeInMB,
+                engineSettings.transpositionTableAlignmentInKB);
+    }
+
+    // throws an OutOfMemoryError if there isn't enough heap (or direct memory for the off-heap table)
+    static TranspositionTable create(boolean offHeap, int sizeInMB, int alignmentInKB){
+        if(offHeap){
+            return new OffHeapTranspositionTable(sizeInMB, alignmentInKB);
+        }
+        return new HeapTranspositionTable(sizeInMB);
+    }
+
+    long getNumberOfBuckets(){
+        return bucketMask + 1;
+    }
+
+    // offset = index of the long inside the bucket
+    abstract long read(long bucket, int offset);
+
+    abstract void write(long bucket, int offset, long value);
+
+    abstract void clear();
+
+    // the search counts mates from the root, the table from the stored position (the same position can be reached at any ply)
+    static int scoreToTable(int score, int ply){
+        if(score >= EvaluationMethod.MATE_SCORE - Minimax.MAX_PLY){
+            return score + ply;
+        }
+        if(score <= -EvaluationMethod.MATE_SCORE + Minimax.MAX_PLY){
+            return score - ply;
+        }
+        return score;
+    }
+
+    static int scoreFromTable(int score, int ply){
+        if(score >= EvaluationMethod.MATE_SCORE - Minimax.MAX_PLY){
+            return score - ply;
+        }
+        if(score <= -EvaluationMethod.MATE_SCORE + Minimax.MAX_PLY){
+            return score + ply;
+        }
+        return score;
+    }
+
+    boolean probe(long key, Entry entry){
+        long bucket = key & bucketMask;
+
+        for(int offset = 0; offset < LONGS_PER_BUCKET; offset += LONGS_PER_ENTRY){
+            long data = read(bucket, offset + 1);
+            long scoreBits = read(bucket, offset + 2);
+
+            if(data != 0 && (read(bucket, offset) ^ data ^ scoreBits) == key){
+                entry.move = (int) data;
+                entry.depth = (int) (data >>> 32) & 0xFF;
+                entry.bound = (int) (data >>> 40) & 0x3;
+                entry.score = (int) scoreBits;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void store(long key, int move, int depth, int bound, int score){
+        long bucket = key & bucketMask;
+        int offset = 0;
+
+        // the depth-preferred entry is only replaced by a search at least as deep (or of the same position)
+        long storedData = read(bucket, 1);
+        long storedKey = read(bucket, 0) ^ storedData ^ read(bucket, 2);
+        if(storedKey != key && ((storedData >>> 32) & 0xFF) > depth){
+            offset = LONGS_PER_ENTRY;
+            storedData = read(bucket, offset + 1);
+            storedKey = read(bucket, offset) ^ storedData ^ read(bucket, offset + 2);
+        }
+
+        // a fail low doesn't know a best move, keep the old one
+        if(move == MoveEncoding.NO_MOVE && storedKey == key){
+            move = (int) storedData;
+        }
+
+        long data = (move & 0xFFFFFFFFL) | (long) depth << 32 | (long) bound << 40;
+        long scoreBits = score;
+
+        write(bucket, offset, key ^ data ^ scoreBits);
+        write(bucket, offset + 1, data);
+        write(bucket, offset + 2, scoreBits);
+    }
+}
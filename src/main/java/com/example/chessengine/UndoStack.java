@@ -0,0 +1,91 @@
+package com.example.chessengine;
+
+import java.util.Arrays;
+
+// what undoMove needs to restore, one entry per executed move
+// parallel primitive arrays: push and pop don't allocate (the arrays only grow in very long games)
+public class UndoStack {
+
+    int size;
+
+    int[] moves;
+    // state of the position before the move
+    int[] castleRights;
+    int[] enPassantSquares;
+    int[] numberOfMovesWithoutProgress;
+    long[] keys;
+    long[] checkers;
+    long[] pinnedPieces;
+
+    public UndoStack(int capacity){
+        moves = new int[capacity];
+        castleRights = new int[capacity];
+        enPassantSquares = new int[capacity];
+        numberOfMovesWithoutProgress = new int[capacity];
+        keys = new long[capacity];
+        checkers = new long[capacity];
+        pinnedPieces = new long[capacity];
+    }
+
+    public UndoStack(UndoStack other){
+        size = other.size;
+        moves = other.moves.clone();
+        castleRights = other.castleRights.clone();
+        enPassantSquares = other.enPassantSquares.clone();
+        numberOfMovesWithoutProgress = other.numberOfMovesWithoutProgress.clone();
+        keys = other.keys.clone();
+        checkers = other.checkers.clone();
+        pinnedPieces = other.pinnedPieces.clone();
+    }
+
+    // only the entries in use, the arrays are reused unless they are too small
+    void copyFrom(UndoStack other){
+        while(moves.length < other.size){
+            grow();
+        }
+        size = other.size;
+        System.arraycopy(other.moves, 0, moves, 0, size);
+        System.arraycopy(other.castleRights, 0, castleRights, 0, size);
+        System.arraycopy(other.enPassantSquares, 0, enPassantSquares, 0, size);
+        System.arraycopy(other.numberOfMovesWithoutProgress, 0, numberOfMovesWithoutProgress, 0, size);
+        System.arraycopy(other.keys, 0, keys, 0, size);
+        System.arraycopy(other.checkers, 0, checkers, 0, size);
+        System.arraycopy(other.pinnedPieces, 0, pinnedPieces, 0, size);
+    }
+
+    void push(int move, int castleRightsBefore, int enPassantSquareBefore, int numberOfMovesWithoutProgressBefore,
+              long keyBefore, long checkersBefore, long pinnedPiecesBefore){
+        if(size == moves.length){
+            grow();
+        }
+        moves[size] = move;
+        castleRights[size] = castleRightsBefore;
+        enPassantSquares[size] = enPassantSquareBefore;
+        numberOfMovesWithoutProgress[size] = numberOfMovesWithoutProgressBefore;
+        keys[size] = keyBefore;
+        checkers[size] = checkersBefore;
+        pinnedPieces[size] = pinnedPiecesBefore;
+        size++;
+    }
+
+    // index of the entry of the last move (its fields are read directly)
+    int pop(){
+        assert size > 0 : "nothing to undo";
+        return --size;
+    }
+
+    void clear(){
+        size = 0;
+    }
+
+    private void grow(){
+        int capacity = 2 * moves.length;
+        moves = Arrays.copyOf(moves, capacity);
+        castleRights = Arrays.copyOf(castleRights, capacity);
+        enPassantSquares = Arrays.copyOf(enPassantSquares, capacity);
+        numberOfMovesWithoutProgress = Arrays.copyOf(numberOfMovesWithoutProgress, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        checkers = Arrays.copyOf(checkers, capacity);
+        pinnedPieces = Arrays.copyOf(pinnedPieces, capacity);
+    }
+}
@@ -6,17 +6,17 @@ import java.util.Deque;
 import java.util.List;
 
 public class Variation {
-    Deque<Move> variation;
+    Deque<Integer> variation;
     Deque<Boolean> isPartOfQuiescence;
-    double score;
+    int score;
 
-    public Variation(double score){
+    public Variation(int score){
         this.score = score;
         variation = new ArrayDeque<>();
         this.isPartOfQuiescence = new ArrayDeque<>();
     }
 
-    public Variation(Move move, Variation afterThat, boolean isPartOfQuiescence){
+    public Variation(int move, Variation afterThat, boolean isPartOfQuiescence){
         this.score = afterThat.score;
         this.variation = afterThat.variation;
         this.isPartOfQuiescence = afterThat.isPartOfQuiescence;
@@ -32,8 +32,8 @@ public class Variation {
         StringBuilder res = new StringBuilder();
         int halfMoveCounter = 1;
         int index = 0;
-        for(Move move : variation){
-            res.append(halfMoveCounter).append(". ").append(move.asSAN()).append(isPartOfQuiescence.get(index) ? "\t[Q]" : "").append("\n");
+        for(int move : variation){
+            res.append(halfMoveCounter).append(". ").append(MoveEncoding.toSAN(move)).append(isPartOfQuiescence.get(index) ? "\t[Q]" : "").append("\n");
 
             halfMoveCounter++;
             index++;
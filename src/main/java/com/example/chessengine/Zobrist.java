@@ -0,0 +1,46 @@
+package com.example.chessengine;
+
+// random numbers for zobrist hashing, a position's key is the xor of the numbers of everything that's on the board
+// xor undoes itself, so a move only has to xor in/out what it changes
+public class Zobrist {
+
+    // [piece][square]
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    // xor-ed in when black is to move
+    static final long BLACK_TO_MOVE;
+    // [castle rights bit flags]
+    static final long[] CASTLING = new long[16];
+    // [file], only when an en passant capture is actually possible
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    // fixed seed so keys are the same on every start
+    private static long seed = 0x9E3779B97F4A7C15L;
+
+    static {
+        for(int piece = 0; piece < 12; piece++){
+            for(int square = 0; square < 64; square++){
+                PIECE_SQUARE[piece][square] = nextRandom();
+            }
+        }
+        BLACK_TO_MOVE = nextRandom();
+        for(int castleRights = 0; castleRights < 16; castleRights++){
+            CASTLING[castleRights] = nextRandom();
+        }
+        for(int file = 0; file < 8; file++){
+            EN_PASSANT_FILE[file] = nextRandom();
+        }
+    }
+
+    // material keys reuse the piece square numbers: the n-th piece of a kind is hashed with square n
+    static long materialKey(int piece, int count){
+        return PIECE_SQUARE[piece][count];
+    }
+
+    // xorshift64* (same generator as for the magics)
+    private static long nextRandom(){
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}